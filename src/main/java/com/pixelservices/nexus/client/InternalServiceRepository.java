@@ -1,20 +1,43 @@
 package com.pixelservices.nexus.client;
 
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.http.EndpointTemplate;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.jfr.CacheHitEvent;
+import com.pixelservices.nexus.client.repository.NotFoundCache;
 import com.pixelservices.nexus.client.service.Service;
+import com.pixelservices.nexus.client.service.ServiceCatalog;
 import com.pixelservices.nexus.client.service.ServiceData;
 import com.pixelservices.nexus.client.service.ServiceRepository;
 
+import java.time.Duration;
+import java.util.Optional;
+
 class InternalServiceRepository extends ServiceRepository {
-    
-    public InternalServiceRepository(HttpClient httpClient) {
+    private static final EndpointTemplate SERVICES = EndpointTemplate.of("/api/vendor/services");
+    private static final EndpointTemplate SERVICE = EndpointTemplate.of("/api/vendor/services/{serviceId}");
+
+    private final ServiceCatalog catalog;
+    private final NotFoundCache notFoundCache;
+
+    public InternalServiceRepository(HttpClient httpClient, Duration catalogTtl, NexusRuntime runtime, Duration notFoundTtl) {
         super(httpClient);
+        this.notFoundCache = notFoundTtl != null ? new NotFoundCache("service-not-found", notFoundTtl) : null;
+        if (catalogTtl == null) {
+            this.catalog = null;
+        } else if (runtime != null) {
+            this.catalog = new ServiceCatalog(this::getServices, catalogTtl, runtime.getScheduler(), runtime.getExecutor());
+        } else {
+            this.catalog = new ServiceCatalog(this::getServices, catalogTtl);
+        }
     }
 
     @Override
-    public Service[] getServices() throws NexusClientException {
-        ServiceData[] servicesData = get("/api/vendor/services", ServiceData[].class);
+    public Service[] getServices(RequestOptions options) throws NexusClientException {
+        ServiceData[] servicesData = get(SERVICES.expand(), ServiceData[].class, options);
         Service[] services = new Service[servicesData.length];
         for (int i = 0; i < servicesData.length; i++) {
             services[i] = constructService(servicesData[i]);
@@ -23,11 +46,77 @@ class InternalServiceRepository extends ServiceRepository {
     }
 
     @Override
-    public Service getService(String serviceId) throws NexusClientException {
+    public Service getService(String serviceId, RequestOptions options) throws NexusClientException {
+        if (serviceId == null || serviceId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Service ID cannot be null or empty");
+        }
+        Service service = fromCatalog(serviceId);
+        if (service != null) {
+            return service;
+        }
+        if (notFoundCache != null && notFoundCache.contains(serviceId)) {
+            throw new NexusClientNotFoundException("Service " + serviceId + " not found (cached)", null, false);
+        }
+        try {
+            return fetched(get(SERVICE.expand(serviceId), ServiceData.class, options));
+        } catch (NexusClientNotFoundException e) {
+            if (notFoundCache != null) {
+                notFoundCache.add(serviceId);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Service> findService(String serviceId, RequestOptions options) throws NexusClientException {
         if (serviceId == null || serviceId.trim().isEmpty()) {
             throw new IllegalArgumentException("Service ID cannot be null or empty");
         }
-        return constructService(get("/api/vendor/services/" + serviceId, ServiceData.class));
+        Service service = fromCatalog(serviceId);
+        if (service != null) {
+            return Optional.of(service);
+        }
+        if (notFoundCache != null && notFoundCache.contains(serviceId)) {
+            return Optional.empty();
+        }
+        ServiceData serviceData = getIfExists(SERVICE.expand(serviceId), ServiceData.class, options);
+        if (serviceData == null) {
+            if (notFoundCache != null) {
+                notFoundCache.add(serviceId);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(fetched(serviceData));
+    }
+
+    @Override
+    public NotFoundCache getNotFoundCache() {
+        return notFoundCache;
+    }
+
+    @Override
+    public ServiceCatalog getCatalog() {
+        return catalog;
+    }
+
+    private Service fromCatalog(String serviceId) {
+        Service service = catalog != null ? catalog.get(serviceId) : null;
+        if (service != null) {
+            CacheHitEvent.emit("service-catalog", serviceId);
+        }
+        return service;
+    }
+
+    /**
+     * Wraps a service fetched individually, adding it to the catalog: it is unknown to the
+     * current snapshot, e.g. created since the last refresh.
+     */
+    private Service fetched(ServiceData serviceData) {
+        Service service = constructService(serviceData);
+        if (catalog != null) {
+            catalog.add(service);
+        }
+        return service;
     }
 
     private Service constructService(ServiceData serviceData) {
@@ -1,21 +1,62 @@
 package com.pixelservices.nexus.client;
 
+import com.pixelservices.nexus.client.data.CompiledEMailTemplate;
 import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.data.EMailRecipient;
+import com.pixelservices.nexus.client.data.EMailTemplate;
+import com.pixelservices.nexus.client.data.TemplatedEMailBatch;
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.http.ApiResponse;
+import com.pixelservices.nexus.client.http.EndpointTemplate;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.Priority;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.outbox.EMailOutbox;
+import com.pixelservices.nexus.client.repository.NotFoundCache;
 import com.pixelservices.nexus.client.user.User;
 import com.pixelservices.nexus.client.user.UserData;
+import com.pixelservices.nexus.client.user.UserProjection;
+import com.pixelservices.nexus.client.user.UserQuery;
 import com.pixelservices.nexus.client.user.UserRepository;
+import com.pixelservices.nexus.client.user.UserTable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 class InternalUserRepository extends UserRepository {
-    
-    public InternalUserRepository(HttpClient httpClient) {
+    private static final EndpointTemplate USERS = EndpointTemplate.of("/api/nexus/users");
+    private static final EndpointTemplate USER = EndpointTemplate.of("/api/nexus/users/{userId}");
+    private static final EndpointTemplate SEND_EMAIL = EndpointTemplate.of("/api/nexus/users/{userId}/send-email");
+    private static final EndpointTemplate EMAIL_TEMPLATES = EndpointTemplate.of("/api/nexus/email-templates");
+    private static final EndpointTemplate SEND_TEMPLATED_EMAIL = EndpointTemplate.of("/api/nexus/users/send-templated-email");
+    private static final int TEMPLATED_EMAIL_BATCH_SIZE = 500;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final Set<EMailTemplate> registeredTemplates = ConcurrentHashMap.newKeySet();
+    private final Map<EMailTemplate, CompiledEMailTemplate> compiledTemplates = new ConcurrentHashMap<>();
+    private volatile boolean serverTemplatesSupported = true;
+    private final EMailOutbox emailOutbox;
+    private final NotFoundCache notFoundCache;
+
+    public InternalUserRepository(HttpClient httpClient, Path emailOutboxDirectory, Duration notFoundTtl, NexusRuntime runtime) {
         super(httpClient);
+        this.emailOutbox = emailOutboxDirectory != null
+                ? EMailOutbox.open(emailOutboxDirectory, this::deliverEmail, EMailOutbox.DEFAULT_SEGMENT_BYTES, runtime != null ? runtime.getExecutor() : null)
+                : null;
+        this.notFoundCache = notFoundTtl != null ? new NotFoundCache("user-not-found", notFoundTtl) : null;
     }
 
     @Override
-    public User[] getUsers() throws NexusClientException {
-        UserData[] usersData = get("/api/nexus/users", UserData[].class);
+    public User[] getUsers(RequestOptions options) throws NexusClientException {
+        UserData[] usersData = get(USERS.expand(), UserData[].class, withDefaultPriority(options, Priority.BULK));
         User[] users = new User[usersData.length];
         for (int i = 0; i < usersData.length; i++) {
             users[i] = constructUser(usersData[i]);
@@ -24,21 +65,173 @@ class InternalUserRepository extends UserRepository {
     }
 
     @Override
-    public User getUser(String userId) throws NexusClientException {
+    public UserTable getUserTable(RequestOptions options) throws NexusClientException {
+        return constructUserTable(get(USERS.expand(), UserTable.class, withDefaultPriority(options, Priority.BULK)));
+    }
+
+    @Override
+    public UserProjection[] queryUsers(UserQuery query, RequestOptions options) throws NexusClientException {
+        if (query == null) {
+            throw new IllegalArgumentException("User query cannot be null");
+        }
+        UserProjection[] users = get(USERS.expand().withQuery(query.toQueryString()), UserProjection[].class, withDefaultPriority(options, Priority.BULK));
+        // Servers that ignore the filter parameters return every user
+        int matching = 0;
+        for (UserProjection user : users) {
+            if (query.matches(user.id(), user.email())) {
+                users[matching++] = user;
+            }
+        }
+        return matching == users.length ? users : Arrays.copyOf(users, matching);
+    }
+
+    @Override
+    public UserTable getUserTable(UserQuery query, RequestOptions options) throws NexusClientException {
+        if (query == null) {
+            throw new IllegalArgumentException("User query cannot be null");
+        }
+        return constructUserTable(get(USERS.expand().withQuery(query.toQueryString()), UserTable.class, withDefaultPriority(options, Priority.BULK)), query);
+    }
+
+    @Override
+    public User getUser(String userId, RequestOptions options) throws NexusClientException {
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be null or empty");
         }
-        return constructUser(get("/api/nexus/users/" + userId, UserData.class));
+        if (notFoundCache != null && notFoundCache.contains(userId)) {
+            throw new NexusClientNotFoundException("User " + userId + " not found (cached)", null, false);
+        }
+        try {
+            return constructUser(get(USER.expand(userId), UserData.class, options));
+        } catch (NexusClientNotFoundException e) {
+            if (notFoundCache != null) {
+                notFoundCache.add(userId);
+            }
+            throw e;
+        }
     }
 
     @Override
-    public boolean sendEmail(String userId, EMail email) throws NexusClientException {
+    public Optional<User> findUser(String userId, RequestOptions options) throws NexusClientException {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (notFoundCache != null && notFoundCache.contains(userId)) {
+            return Optional.empty();
+        }
+        UserData userData = getIfExists(USER.expand(userId), UserData.class, options);
+        if (userData == null) {
+            if (notFoundCache != null) {
+                notFoundCache.add(userId);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(constructUser(userData));
+    }
+
+    @Override
+    public boolean sendEmail(String userId, EMail email, RequestOptions options) throws NexusClientException {
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID cannot be null or empty");
         }
         if (email == null) {
             throw new IllegalArgumentException("Email cannot be null");
         }
-        return post("/api/nexus/users/" + userId + "/send-email", email, Boolean.class);
+        if (emailOutbox != null) {
+            emailOutbox.append(userId, email, options);
+            return true;
+        }
+        return post(SEND_EMAIL.expand(userId), email, Boolean.class, options);
+    }
+
+    @Override
+    public EMailOutbox getEmailOutbox() {
+        return emailOutbox;
+    }
+
+    @Override
+    public NotFoundCache getNotFoundCache() {
+        return notFoundCache;
+    }
+
+    @Override
+    public boolean registerEmailTemplate(EMailTemplate template, RequestOptions options) throws NexusClientException {
+        validateTemplate(template);
+        if (!serverTemplatesSupported) {
+            return false;
+        }
+        ApiResponse<Boolean> response = postResponse(EMAIL_TEMPLATES.expand(), template, Boolean.class, options);
+        if (isUnsupported(response)) {
+            logger.warn("Email templates are not supported by the Nexus API, rendering templates locally.");
+            serverTemplatesSupported = false;
+            return false;
+        }
+        response.throwIfError();
+        registeredTemplates.add(template);
+        return true;
+    }
+
+    @Override
+    public int sendTemplatedEmail(EMailTemplate template, List<EMailRecipient> recipients, RequestOptions options) throws NexusClientException {
+        validateTemplate(template);
+        if (recipients == null) {
+            throw new IllegalArgumentException("Recipients cannot be null");
+        }
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+        // Campaigns must not crowd out interactive calls
+        options = withDefaultPriority(options, Priority.BULK);
+
+        if (serverTemplatesSupported && (registeredTemplates.contains(template) || registerEmailTemplate(template, options))) {
+            int sent = 0;
+            for (int from = 0; from < recipients.size(); from += TEMPLATED_EMAIL_BATCH_SIZE) {
+                List<EMailRecipient> batch = recipients.subList(from, Math.min(recipients.size(), from + TEMPLATED_EMAIL_BATCH_SIZE));
+                try {
+                    ApiResponse<Boolean> response = postResponse(SEND_TEMPLATED_EMAIL.expand(), new TemplatedEMailBatch(template.id(), batch), Boolean.class, options);
+                    if (from == 0 && isUnsupported(response)) {
+                        logger.warn("Templated email sending is not supported by the Nexus API, rendering templates locally.");
+                        serverTemplatesSupported = false;
+                        break;
+                    }
+                    if (Boolean.TRUE.equals(response.getDataOrThrow())) {
+                        sent += batch.size();
+                    }
+                } catch (NexusClientException e) {
+                    throw partialSendFailure(e, sent);
+                }
+            }
+            if (serverTemplatesSupported) {
+                return sent;
+            }
+        }
+
+        // Local fallback: the template is compiled once and rendered per recipient
+        return sendRendered(compiledTemplates.computeIfAbsent(template, EMailTemplate::compile), recipients, options);
+    }
+
+    /**
+     * Delivers an email queued in the outbox. The idempotency key lets the API discard redeliveries.
+     * Deliveries run in the background, so they are scheduled as bulk traffic.
+     */
+    private ApiResponse<Boolean> deliverEmail(String userId, EMail email, String idempotencyKey) throws NexusClientException {
+        RequestOptions options = RequestOptions.builder()
+                .header(IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+                .build();
+        return postResponse(SEND_EMAIL.expand(userId), email, Boolean.class, withDefaultPriority(options, Priority.BULK));
+    }
+
+    private static void validateTemplate(EMailTemplate template) {
+        if (template == null) {
+            throw new IllegalArgumentException("Email template cannot be null");
+        }
+        if (template.id() == null || template.id().trim().isEmpty()) {
+            throw new IllegalArgumentException("Email template ID cannot be null or empty");
+        }
+    }
+
+    private static boolean isUnsupported(ApiResponse<?> response) {
+        int statusCode = response.getStatusCode();
+        return statusCode == 404 || statusCode == 405 || statusCode == 501;
     }
 }
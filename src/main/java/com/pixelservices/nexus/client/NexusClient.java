@@ -2,10 +2,14 @@ package com.pixelservices.nexus.client;
 
 import com.pixelservices.nexus.client.http.DefaultHttpClient;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.NexusRuntime;
 import com.pixelservices.nexus.client.service.ServiceRepository;
 import com.pixelservices.nexus.client.user.UserRepository;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 public class NexusClient implements AutoCloseable {
     private final HttpClient httpClient;
 
@@ -14,16 +18,15 @@ public class NexusClient implements AutoCloseable {
     public final ServiceRepository serviceRepository;
 
 
-    NexusClient(@NotNull String baseUrl, @NotNull String token, String vendorId) {
-        this.httpClient = new DefaultHttpClient(
-                baseUrl,
-                token,
-                vendorId
-        );
+    NexusClient(@NotNull HttpClient httpClient, NexusRuntime runtime, Duration serviceCatalogTtl, Path emailOutboxDirectory, Duration notFoundCacheTtl) {
+        this.httpClient = httpClient;
 
         // Initialize repositories
-        this.userRepository = new InternalUserRepository(httpClient);
-        this.serviceRepository = new InternalServiceRepository(httpClient);
+        this.userRepository = new InternalUserRepository(httpClient, emailOutboxDirectory, notFoundCacheTtl, runtime);
+        this.serviceRepository = new InternalServiceRepository(httpClient, serviceCatalogTtl, runtime, notFoundCacheTtl);
+        if (serviceRepository.getCatalog() != null) {
+            serviceRepository.getCatalog().start();
+        }
     }
 
     /**
@@ -39,6 +42,12 @@ public class NexusClient implements AutoCloseable {
      * Closes the client and releases resources.
      */
     public void close() {
+        if (serviceRepository.getCatalog() != null) {
+            serviceRepository.getCatalog().close();
+        }
+        if (userRepository.getEmailOutbox() != null) {
+            userRepository.getEmailOutbox().close();
+        }
         if (httpClient instanceof DefaultHttpClient) {
             ((DefaultHttpClient) httpClient).close();
         }
@@ -4,24 +4,47 @@ import com.pixelservices.logger.Logger;
 import com.pixelservices.logger.LoggerFactory;
 import com.pixelservices.nexus.client.exception.NexusClientAuthenticationException;
 import com.pixelservices.nexus.client.exception.NexusClientException;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-
-import java.io.IOException;
+import com.pixelservices.nexus.client.http.ConcurrencyLimitPolicy;
+import com.pixelservices.nexus.client.http.DefaultHttpClient;
+import com.pixelservices.nexus.client.http.HedgingPolicy;
+import com.pixelservices.nexus.client.http.LoadBalancingPolicy;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.RequestInterceptor;
+import com.pixelservices.nexus.client.http.WireFormat;
+import com.pixelservices.nexus.client.jfr.VerificationEvent;
 import java.net.UnknownHostException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class NexusClientBuilder {
+    private static final String PING_PATH = "/ping";
+
     private final Logger logger = LoggerFactory.getLogger(NexusClientBuilder.class);
-    private final CloseableHttpClient httpClient = HttpClients.createDefault();
     private final String token;
     private String vendorId;
 
     private String baseUrl = "https://nexus.pixel-services.com";
+    private List<String> baseUrls;
+    private LoadBalancingPolicy loadBalancingPolicy;
     private int verifyAttempts = 5;
     private Duration verifyDelay = Duration.ofSeconds(30);
+    private HedgingPolicy hedgingPolicy;
+    private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    private Duration requestTimeout;
+    private double requestLogSampleRate;
+    private Duration serviceCatalogTtl;
+    private Duration notFoundCacheTtl;
+    private boolean stacklessErrors;
+    private Path emailOutboxDirectory;
+    private int maxResponseBodySize = 32 * 1024 * 1024;
+    private WireFormat wireFormat = WireFormat.JSON;
+    private NexusRuntime runtime;
+    private final List<RequestInterceptor> interceptors = new ArrayList<>();
 
     public NexusClientBuilder(String token) {
         this.token = token;
@@ -34,6 +57,36 @@ public class NexusClientBuilder {
 
     public NexusClientBuilder withBaseUrl(String baseUrl) {
         this.baseUrl = baseUrl;
+        this.baseUrls = null;
+        return this;
+    }
+
+    /**
+     * Spreads requests over several endpoints of the Nexus API, e.g. regional deployments.
+     * Each request goes to the less loaded of two endpoints, failing endpoints are ejected
+     * until they answer their health check again.
+     *
+     * @param baseUrls the base URLs of the endpoints
+     * @return this builder
+     * @see #withLoadBalancing(LoadBalancingPolicy)
+     */
+    public NexusClientBuilder withBaseUrls(String... baseUrls) {
+        if (baseUrls == null || baseUrls.length == 0) {
+            throw new IllegalArgumentException("At least one base URL is required");
+        }
+        this.baseUrl = baseUrls[0];
+        this.baseUrls = Arrays.asList(baseUrls.clone());
+        return this;
+    }
+
+    /**
+     * Sets how requests are spread over the base URLs configured with {@link #withBaseUrls(String...)}.
+     *
+     * @param loadBalancingPolicy the load balancing policy, or null for the default policy
+     * @return this builder
+     */
+    public NexusClientBuilder withLoadBalancing(LoadBalancingPolicy loadBalancingPolicy) {
+        this.loadBalancingPolicy = loadBalancingPolicy;
         return this;
     }
 
@@ -47,6 +100,175 @@ public class NexusClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the connect timeout, which is also used as the connection pool lease timeout.
+     *
+     * @param connectTimeout the connect timeout
+     * @return this builder
+     */
+    public NexusClientBuilder withConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the read (socket) timeout, i.e. the maximum inactivity between two data packets.
+     *
+     * @param readTimeout the read timeout
+     * @return this builder
+     */
+    public NexusClientBuilder withReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the default total time allowed for each call. Per-call deadlines set through
+     * {@link com.pixelservices.nexus.client.http.RequestOptions} are capped by this timeout.
+     *
+     * @param requestTimeout the request timeout, or null for no limit
+     * @return this builder
+     */
+    public NexusClientBuilder withRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    /**
+     * Enables hedging of idempotent GET requests.
+     *
+     * @param hedgingPolicy the hedging policy, or null to disable hedging
+     * @return this builder
+     */
+    public NexusClientBuilder withHedging(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+        return this;
+    }
+
+    /**
+     * Enables adaptive concurrency limiting. The number of calls in flight follows the observed
+     * latency, and calls over the limit are queued or shed instead of piling up on a struggling server.
+     *
+     * @param concurrencyLimitPolicy the concurrency limit policy, or null to disable limiting
+     * @return this builder
+     */
+    public NexusClientBuilder withConcurrencyLimit(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+        this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+        return this;
+    }
+
+    /**
+     * Enables debug logging for a sampled fraction of successful requests.
+     * Failed requests are always logged.
+     *
+     * @param requestLogSampleRate the fraction of successful requests to log, between 0.0 and 1.0
+     * @return this builder
+     */
+    public NexusClientBuilder withRequestLogSampleRate(double requestLogSampleRate) {
+        this.requestLogSampleRate = requestLogSampleRate;
+        return this;
+    }
+
+    /**
+     * Enables the in-memory service catalog. Services are loaded once and refreshed in the
+     * background ahead of expiry, so {@code getService} lookups no longer wait on the network.
+     *
+     * @param serviceCatalogTtl the time after which the catalog is considered stale, or null to disable it
+     * @return this builder
+     */
+    public NexusClientBuilder withServiceCatalog(Duration serviceCatalogTtl) {
+        this.serviceCatalogTtl = serviceCatalogTtl;
+        return this;
+    }
+
+    /**
+     * Remembers user and service IDs the API answered with 404 for a short time, so repeated
+     * lookups of the same missing ID (e.g. existence checks) are answered without a request.
+     * Entities created during that time are only visible once the entry expires.
+     *
+     * @param notFoundCacheTtl the time a miss is remembered, e.g. a few seconds, or null to disable the cache
+     * @return this builder
+     */
+    public NexusClientBuilder withNotFoundCache(Duration notFoundCacheTtl) {
+        this.notFoundCacheTtl = notFoundCacheTtl;
+        return this;
+    }
+
+    /**
+     * Skips capturing stack traces for expected error outcomes, i.e.
+     * {@link com.pixelservices.nexus.client.exception.NexusClientNotFoundException} and
+     * {@link com.pixelservices.nexus.client.exception.NexusClientRateLimitedException}.
+     *
+     * @param stacklessErrors true to throw these exceptions without a stack trace
+     * @return this builder
+     */
+    public NexusClientBuilder withStacklessErrors(boolean stacklessErrors) {
+        this.stacklessErrors = stacklessErrors;
+        return this;
+    }
+
+    /**
+     * Builds the client on a shared runtime, so many clients (e.g. one per vendor) share one
+     * connection pool, serialization stack, thread set and metrics registry. The runtime is not
+     * closed with the client.
+     *
+     * @param runtime the shared runtime, or null to give the client its own
+     * @return this builder
+     */
+    public NexusClientBuilder withRuntime(NexusRuntime runtime) {
+        this.runtime = runtime;
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of a response body. Larger responses fail as soon as the limit is
+     * reached, without reading or buffering the rest of the body.
+     *
+     * @param maxResponseBodySize the maximum response body size in bytes
+     * @return this builder
+     */
+    public NexusClientBuilder withMaxResponseBodySize(int maxResponseBodySize) {
+        this.maxResponseBodySize = maxResponseBodySize;
+        return this;
+    }
+
+    /**
+     * Sets the preferred wire format. With {@link WireFormat#SMILE} or {@link WireFormat#CBOR},
+     * the client asks for responses in that format and sends request bodies in it once the
+     * server has shown it understands it. Servers that only speak JSON keep working unchanged.
+     *
+     * @param wireFormat the preferred wire format, JSON by default
+     * @return this builder
+     */
+    public NexusClientBuilder withWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+        return this;
+    }
+
+    /**
+     * Enables the durable email outbox. {@code sendEmail} then returns as soon as the email is
+     * written to disk, and emails are delivered in the background, surviving process restarts.
+     *
+     * @param emailOutboxDirectory the directory holding the outbox, or null to send emails synchronously
+     * @return this builder
+     */
+    public NexusClientBuilder withEmailOutbox(Path emailOutboxDirectory) {
+        this.emailOutboxDirectory = emailOutboxDirectory;
+        return this;
+    }
+
+    /**
+     * Registers an interceptor around every request made by the client.
+     * Interceptors run in the order they are registered.
+     *
+     * @param interceptor the interceptor to add
+     * @return this builder
+     */
+    public NexusClientBuilder withInterceptor(RequestInterceptor interceptor) {
+        this.interceptors.add(interceptor);
+        return this;
+    }
+
     /**
      * Builds the NexusClient instance after verifying the connection.
      *
@@ -58,9 +280,32 @@ public class NexusClientBuilder {
             throw new IllegalArgumentException("VendorId is required");
         }
 
-        verifyConnection();
+        DefaultHttpClient.Builder httpClientBuilder = DefaultHttpClient.builder(baseUrl, token, vendorId)
+                .runtime(runtime)
+                .baseUrls(baseUrls)
+                .loadBalancing(loadBalancingPolicy)
+                .hedging(hedgingPolicy)
+                .concurrencyLimit(concurrencyLimitPolicy)
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .requestTimeout(requestTimeout)
+                .logSampleRate(requestLogSampleRate)
+                .maxResponseBodySize(maxResponseBodySize)
+                .wireFormat(wireFormat)
+                .stacklessErrors(stacklessErrors);
+        for (RequestInterceptor interceptor : interceptors) {
+            httpClientBuilder.interceptor(interceptor);
+        }
+        DefaultHttpClient httpClient = httpClientBuilder.build();
 
-        return new NexusClient(baseUrl, token, vendorId);
+        // Verification goes through the client itself, so it reuses the (possibly shared) connection pool
+        try {
+            verifyConnection(httpClient);
+            return new NexusClient(httpClient, httpClient.getRuntime(), serviceCatalogTtl, emailOutboxDirectory, notFoundCacheTtl);
+        } catch (RuntimeException e) {
+            httpClient.close();
+            throw e;
+        }
     }
 
     /**
@@ -69,10 +314,11 @@ public class NexusClientBuilder {
      *
      * @throws NexusClientAuthenticationException if verification fails
      */
-    private void verifyConnection() {
+    private void verifyConnection(DefaultHttpClient httpClient) {
         int attempts = verifyAttempts-1;
+        int attempt = 0;
         while (attempts-- > 0) {
-            if (performConnectionTest()) {
+            if (performConnectionTest(httpClient, ++attempt)) {
                 logger.info("Connection verified successfully.");
                 return;
             } else {
@@ -93,15 +339,17 @@ public class NexusClientBuilder {
      *
      * @return true if the connection is verified, false otherwise
      */
-    private boolean performConnectionTest() {
-        HttpGet request = new HttpGet(baseUrl + "/ping");
-        request.addHeader("X-Vendor-Id", vendorId);
-        request.addHeader("X-Vendor-Access-Token", token);
-
-        try (CloseableHttpResponse response = httpClient.execute(request)) {
-            int statusCode = response.getStatusLine().getStatusCode();
+    private boolean performConnectionTest(DefaultHttpClient httpClient, int attempt) {
+        VerificationEvent event = new VerificationEvent();
+        event.begin();
+        event.attempt = attempt;
+        event.baseUrl = baseUrls != null ? String.join(", ", baseUrls) : baseUrl;
+        try {
+            int statusCode = httpClient.get(PING_PATH, Void.class).getStatusCode();
+            event.statusCode = statusCode;
+            event.verified = statusCode == 200;
             if (statusCode == 404 || statusCode == 525) {
-                logger.error("Unable to verify connection — Invalid base URL: " + baseUrl);
+                logger.error("Unable to verify connection — Invalid base URL: " + (baseUrls != null ? baseUrls : baseUrl));
                 return false;
             } else if (statusCode != 200) {
                 logger.error("Unable to verify connection — Authentication failed: Invalid token or vendor ID.");
@@ -110,13 +358,16 @@ public class NexusClientBuilder {
                 logger.debug("Connection test successful with status code: " + statusCode);
                 return true;
             }
-        } catch (UnknownHostException e) {
-            logger.error("Unable to verify connection — The host could not be resolved: " + e.getMessage());
-            return false;
-        }
-        catch (IOException e) {
-            logger.error("Unable to verify connection — An unexpected error occurred while verifying the connection.", e);
+        } catch (NexusClientException e) {
+            event.error = e.getMessage();
+            if (e.getCause() instanceof UnknownHostException) {
+                logger.error("Unable to verify connection — The host could not be resolved: " + e.getCause().getMessage());
+            } else {
+                logger.error("Unable to verify connection — An unexpected error occurred while verifying the connection.", e);
+            }
             return false;
+        } finally {
+            event.commit();
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.pixelservices.nexus.client.data;
+
+import com.pixelservices.nexus.client.exception.NexusClientValidationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link EMailTemplate} parsed once into literal and variable parts, so rendering it for
+ * each recipient is a single pass without re-scanning the template text.
+ * Variable values are HTML-escaped when the template is HTML.
+ */
+public final class CompiledEMailTemplate {
+    private final EMailTemplate template;
+    private final Part subject;
+    private final Part body;
+
+    CompiledEMailTemplate(EMailTemplate template) {
+        this.template = template;
+        this.subject = Part.parse(template.subject());
+        this.body = Part.parse(template.body());
+    }
+
+    public EMailTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Renders the template with the given variables.
+     *
+     * @param variables the variable values
+     * @return the rendered email
+     * @throws NexusClientValidationException if a variable used by the template is missing
+     */
+    public EMail render(Map<String, String> variables) throws NexusClientValidationException {
+        return new EMail(
+                subject.render(variables, false),
+                body.render(variables, template.isHtml()),
+                template.isHtml()
+        );
+    }
+
+    private static final class Part {
+        private final String[] literals;
+        private final String[] variables;
+        private final int literalLength;
+
+        private Part(String[] literals, String[] variables) {
+            this.literals = literals;
+            this.variables = variables;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        private static Part parse(String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int start = 0;
+            int open;
+            while ((open = text.indexOf("{{", start)) >= 0) {
+                int close = text.indexOf("}}", open + 2);
+                if (close < 0) {
+                    break;
+                }
+                literals.add(text.substring(start, open));
+                variables.add(text.substring(open + 2, close).trim());
+                start = close + 2;
+            }
+            literals.add(text.substring(start));
+            return new Part(literals.toArray(new String[0]), variables.toArray(new String[0]));
+        }
+
+        private String render(Map<String, String> values, boolean escapeHtml) {
+            if (variables.length == 0) {
+                return literals[0];
+            }
+            StringBuilder out = new StringBuilder(literalLength + variables.length * 16);
+            out.append(literals[0]);
+            for (int i = 0; i < variables.length; i++) {
+                String value = values != null ? values.get(variables[i]) : null;
+                if (value == null) {
+                    throw new NexusClientValidationException("Missing template variable", variables[i], null);
+                }
+                if (escapeHtml) {
+                    appendEscaped(out, value);
+                } else {
+                    out.append(value);
+                }
+                out.append(literals[i + 1]);
+            }
+            return out.toString();
+        }
+
+        private static void appendEscaped(StringBuilder out, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '&' -> out.append("&amp;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+}
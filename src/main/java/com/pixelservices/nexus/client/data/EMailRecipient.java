@@ -0,0 +1,9 @@
+package com.pixelservices.nexus.client.data;
+
+import java.util.Map;
+
+/**
+ * A recipient of a templated email together with the values for the template's variables.
+ */
+public record EMailRecipient(String userId, Map<String, String> variables) {
+}
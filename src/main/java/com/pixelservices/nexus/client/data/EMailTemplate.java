@@ -0,0 +1,19 @@
+package com.pixelservices.nexus.client.data;
+
+/**
+ * An email whose subject and body contain {@code {{variable}}} placeholders that are filled in per recipient.
+ */
+public record EMailTemplate(String id, String subject, String body, boolean isHtml) {
+    public EMailTemplate(String id, String subject, String body) {
+        this(id, subject, body, false);
+    }
+
+    /**
+     * Parses this template for local rendering.
+     *
+     * @return the compiled template
+     */
+    public CompiledEMailTemplate compile() {
+        return new CompiledEMailTemplate(this);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pixelservices.nexus.client.data;
+
+import java.util.List;
+
+/**
+ * Request body for sending a registered email template to a batch of recipients.
+ */
+public record TemplatedEMailBatch(String templateId, List<EMailRecipient> recipients) {
+}
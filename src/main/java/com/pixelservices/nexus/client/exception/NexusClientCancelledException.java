@@ -0,0 +1,15 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when a request is cancelled through its cancellation token.
+ * Like deadlines, cancellation is expected, so this exception does not capture a stack trace.
+ */
+public class NexusClientCancelledException extends NexusClientException {
+    public NexusClientCancelledException(String message) {
+        super(message, null, false);
+    }
+
+    public NexusClientCancelledException(String message, Throwable cause) {
+        super(message, cause, false);
+    }
+}
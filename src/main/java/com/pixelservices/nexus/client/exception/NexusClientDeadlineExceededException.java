@@ -0,0 +1,15 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when a request does not complete before its deadline.
+ * Deadlines are an expected outcome under load, so this exception does not capture a stack trace.
+ */
+public class NexusClientDeadlineExceededException extends NexusClientException {
+    public NexusClientDeadlineExceededException(String message) {
+        super(message, null, false);
+    }
+
+    public NexusClientDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause, false);
+    }
+}
@@ -8,4 +8,12 @@ public class NexusClientException extends RuntimeException {
     public NexusClientException(String message, Throwable e) {
         super(message, e);
     }
+
+    /**
+     * Creates an exception that optionally skips capturing the stack trace,
+     * for expected outcomes that are raised frequently.
+     */
+    protected NexusClientException(String message, Throwable e, boolean writableStackTrace) {
+        super(message, e, true, writableStackTrace);
+    }
 }
@@ -20,6 +20,16 @@ public class NexusClientHttpException extends NexusClientException {
         this.responseBody = responseBody;
     }
 
+    /**
+     * Creates an exception that optionally skips capturing the stack trace,
+     * for expected outcomes such as a lookup of a missing entity.
+     */
+    protected NexusClientHttpException(String message, int statusCode, String responseBody, boolean writableStackTrace) {
+        super(message, null, writableStackTrace);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+
     public int getStatusCode() {
         return statusCode;
     }
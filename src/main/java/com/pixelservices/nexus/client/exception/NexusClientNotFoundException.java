@@ -0,0 +1,17 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when the requested entity does not exist (HTTP 404).
+ */
+public class NexusClientNotFoundException extends NexusClientHttpException {
+    public NexusClientNotFoundException(String message, String responseBody) {
+        this(message, responseBody, true);
+    }
+
+    /**
+     * Creates an exception that optionally skips capturing the stack trace, for lookups where a miss is expected.
+     */
+    public NexusClientNotFoundException(String message, String responseBody, boolean writableStackTrace) {
+        super(message, 404, responseBody, writableStackTrace);
+    }
+}
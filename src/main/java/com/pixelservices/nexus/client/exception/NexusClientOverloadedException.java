@@ -0,0 +1,12 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when the concurrency limiter sheds a request instead of sending it.
+ * The request never reached the Nexus API, so it is safe to retry later. Shedding is an
+ * expected outcome under load, so this exception does not capture a stack trace.
+ */
+public class NexusClientOverloadedException extends NexusClientException {
+    public NexusClientOverloadedException(String message) {
+        super(message, null, false);
+    }
+}
@@ -0,0 +1,23 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when sending to many recipients fails after some of them were already accepted.
+ * The cause is the failure of the request that was sent last.
+ */
+public class NexusClientPartialSendException extends NexusClientException {
+    private final int sent;
+
+    public NexusClientPartialSendException(String message, int sent, Throwable cause) {
+        super(message, cause);
+        this.sent = sent;
+    }
+
+    /**
+     * Gets the number of recipients the email was accepted for before the failure.
+     *
+     * @return the number of recipients already sent to
+     */
+    public int getSent() {
+        return sent;
+    }
+}
@@ -0,0 +1,31 @@
+package com.pixelservices.nexus.client.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when the Nexus API throttles the client (HTTP 429).
+ */
+public class NexusClientRateLimitedException extends NexusClientHttpException {
+    private final Duration retryAfter;
+
+    public NexusClientRateLimitedException(String message, String responseBody, Duration retryAfter) {
+        this(message, responseBody, retryAfter, true);
+    }
+
+    /**
+     * Creates an exception that optionally skips capturing the stack trace, as throttling is expected under load.
+     */
+    public NexusClientRateLimitedException(String message, String responseBody, Duration retryAfter, boolean writableStackTrace) {
+        super(message, 429, responseBody, writableStackTrace);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the time the server asked the client to wait before retrying.
+     *
+     * @return the delay from the {@code Retry-After} header, or null if the server did not send one
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when the Nexus API fails to process a request (HTTP 5xx).
+ * The request may or may not have taken effect.
+ */
+public class NexusClientServerErrorException extends NexusClientHttpException {
+    public NexusClientServerErrorException(String message, int statusCode, String responseBody) {
+        super(message, statusCode, responseBody);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pixelservices.nexus.client.exception;
+
+/**
+ * Exception thrown when the token or vendor ID is rejected, or lacks access to the resource (HTTP 401 or 403).
+ */
+public class NexusClientUnauthorizedException extends NexusClientHttpException {
+    public NexusClientUnauthorizedException(String message, int statusCode, String responseBody) {
+        super(message, statusCode, responseBody);
+    }
+}
@@ -1,8 +1,17 @@
 package com.pixelservices.nexus.client.http;
 
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientHttpException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.exception.NexusClientRateLimitedException;
+import com.pixelservices.nexus.client.exception.NexusClientServerErrorException;
+import com.pixelservices.nexus.client.exception.NexusClientUnauthorizedException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
 /**
@@ -19,6 +28,7 @@ public class ApiResponse<T> {
     private final LocalDateTime timestamp;
     private final Map<String, String> headers;
     private final String rawResponse;
+    private final boolean stacklessErrors;
 
     private ApiResponse(Builder<T> builder) {
         this.data = builder.data;
@@ -28,6 +38,7 @@ public class ApiResponse<T> {
         this.timestamp = builder.timestamp;
         this.headers = builder.headers;
         this.rawResponse = builder.rawResponse;
+        this.stacklessErrors = builder.stacklessErrors;
     }
 
     /**
@@ -85,22 +96,80 @@ public class ApiResponse<T> {
     }
 
     /**
-     * Gets the raw response body.
+     * Gets the raw body of a failed response, truncated to the client's maximum error body size.
+     * Successful responses are parsed straight from the received bytes and do not keep their body.
      *
-     * @return the raw response body as a string
+     * @return the raw response body as a string, or null for successful responses
      */
     public String getRawResponse() {
         return rawResponse;
     }
 
     /**
-     * Throws an exception if the response indicates an error.
+     * Gets a header of the response, ignoring the case of its name.
      *
-     * @throws NexusClientException if the response indicates an error
+     * @param name the header name
+     * @return the header value, or null if the response does not have the header
+     */
+    public String getHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Throws an exception if the response indicates an error. The exception type reflects the
+     * status code, e.g. {@link NexusClientNotFoundException} for 404 or
+     * {@link NexusClientRateLimitedException} for 429.
+     *
+     * @throws NexusClientHttpException if the response indicates an error
      */
     public void throwIfError() throws NexusClientException {
         if (!success) {
-            throw new NexusClientException("API request failed: " + message + " (Status: " + statusCode + ")");
+            throw toException();
+        }
+    }
+
+    private NexusClientHttpException toException() {
+        String text = "API request failed: " + message;
+        if (statusCode == 404) {
+            return new NexusClientNotFoundException(text, rawResponse, !stacklessErrors);
+        } else if (statusCode == 429) {
+            return new NexusClientRateLimitedException(text, rawResponse, parseRetryAfter(getHeader("Retry-After")), !stacklessErrors);
+        } else if (statusCode == 401 || statusCode == 403) {
+            return new NexusClientUnauthorizedException(text, statusCode, rawResponse);
+        } else if (statusCode >= 500 && statusCode < 600) {
+            return new NexusClientServerErrorException(text, statusCode, rawResponse);
+        }
+        return new NexusClientHttpException(text, statusCode, rawResponse);
+    }
+
+    /**
+     * Parses a {@code Retry-After} value, either a number of seconds or an HTTP date.
+     */
+    private static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
         }
     }
 
@@ -123,6 +192,7 @@ public class ApiResponse<T> {
         private LocalDateTime timestamp = LocalDateTime.now();
         private Map<String, String> headers;
         private String rawResponse;
+        private boolean stacklessErrors;
 
         public Builder<T> data(T data) {
             this.data = data;
@@ -159,6 +229,15 @@ public class ApiResponse<T> {
             return this;
         }
 
+        /**
+         * Makes {@link #throwIfError()} skip capturing stack traces for expected outcomes,
+         * i.e. not found and rate limited.
+         */
+        public Builder<T> stacklessErrors(boolean stacklessErrors) {
+            this.stacklessErrors = stacklessErrors;
+            return this;
+        }
+
         public ApiResponse<T> build() {
             return new ApiResponse<>(this);
         }
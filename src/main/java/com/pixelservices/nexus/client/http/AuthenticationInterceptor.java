@@ -0,0 +1,33 @@
+package com.pixelservices.nexus.client.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.message.BasicHeader;
+
+/**
+ * Adds the vendor credentials to every request.
+ */
+public class AuthenticationInterceptor implements RequestInterceptor {
+    private final Header vendorIdHeader;
+    private final Header tokenHeader;
+
+    public AuthenticationInterceptor(String vendorId, String token) {
+        this.vendorIdHeader = new BasicHeader("X-Vendor-Id", vendorId);
+        this.tokenHeader = new BasicHeader("X-Vendor-Access-Token", token);
+    }
+
+    @Override
+    public ApiResponse<?> beforeSend(RequestContext context) {
+        context.addHeader(vendorIdHeader);
+        context.addHeader(tokenHeader);
+        return null;
+    }
+
+    /**
+     * Adds the credentials to a request sent outside the interceptor chain, e.g. a health probe.
+     */
+    void applyTo(HttpRequest request) {
+        request.addHeader(vendorIdHeader);
+        request.addHeader(tokenHeader);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pixelservices.nexus.client.http;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handle that allows a caller to cancel in-flight requests.
+ * Every exchange started with a token registers an abort action, which is invoked
+ * as soon as {@link #cancel()} is called. A token can be shared by several requests.
+ */
+public class CancellationToken {
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels all requests using this token, including those started afterwards.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Registration registration : registrations) {
+            registration.run();
+        }
+    }
+
+    /**
+     * Checks if this token has been cancelled.
+     *
+     * @return true if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers an action to run on cancellation. If the token is already cancelled,
+     * the action runs immediately.
+     *
+     * @param action the action to run
+     * @return a registration that must be closed once the action is no longer needed
+     */
+    public Registration register(Runnable action) {
+        Registration registration = new Registration(action);
+        registrations.add(registration);
+        if (cancelled) {
+            registration.run();
+        }
+        return registration;
+    }
+
+    public final class Registration implements AutoCloseable {
+        private final Runnable action;
+
+        private Registration(Runnable action) {
+            this.action = action;
+        }
+
+        private void run() {
+            if (registrations.remove(this)) {
+                action.run();
+            }
+        }
+
+        @Override
+        public void close() {
+            registrations.remove(this);
+        }
+    }
+}
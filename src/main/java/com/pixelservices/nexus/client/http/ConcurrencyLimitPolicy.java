@@ -0,0 +1,182 @@
+package com.pixelservices.nexus.client.http;
+
+import java.time.Duration;
+
+/**
+ * Configuration for adaptive concurrency limiting.
+ * The number of calls allowed in flight follows the gradient between the minimum observed
+ * round-trip time and the current one: it grows while latency stays near the minimum and
+ * shrinks as soon as requests start queueing on the server. Timeouts, transport failures and
+ * 429/503 responses cut the limit multiplicatively. Calls over the limit wait in a bounded queue
+ * or are shed with a {@link com.pixelservices.nexus.client.exception.NexusClientOverloadedException}.
+ */
+public class ConcurrencyLimitPolicy {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final Duration minRttWindow;
+    private final int maxQueueSize;
+    private final Duration queueTimeout;
+
+    private ConcurrencyLimitPolicy(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.rttTolerance = builder.rttTolerance;
+        this.smoothing = builder.smoothing;
+        this.backoffRatio = builder.backoffRatio;
+        this.minRttWindow = builder.minRttWindow;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.queueTimeout = builder.queueTimeout;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Gets how much slower than the minimum round-trip time a call may be before the limit shrinks.
+     *
+     * @return the tolerated ratio of current to minimum round-trip time
+     */
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    /**
+     * Gets the weight of a new sample when the limit is adjusted, between 0 (never moves) and 1 (no smoothing).
+     *
+     * @return the smoothing factor
+     */
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Gets the factor the limit is multiplied with when a call times out, fails or is throttled.
+     *
+     * @return the backoff ratio
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Gets how long a minimum round-trip time is kept before it is measured again,
+     * so the limiter follows lasting changes in the baseline latency.
+     *
+     * @return the minimum round-trip time window
+     */
+    public Duration getMinRttWindow() {
+        return minRttWindow;
+    }
+
+    /**
+     * Gets the number of calls that may wait for a slot. Calls beyond it are shed immediately.
+     *
+     * @return the maximum queue size, 0 to shed every call over the limit
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Gets how long a queued call waits for a slot before it is shed.
+     *
+     * @return the queue timeout
+     */
+    public Duration getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public static class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double rttTolerance = 1.5;
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9;
+        private Duration minRttWindow = Duration.ofSeconds(30);
+        private int maxQueueSize = 0;
+        private Duration queueTimeout = Duration.ofMillis(500);
+
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder rttTolerance(double rttTolerance) {
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        public Builder smoothing(double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        public Builder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Builder minRttWindow(Duration minRttWindow) {
+            this.minRttWindow = minRttWindow;
+            return this;
+        }
+
+        public Builder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public Builder queueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+            return this;
+        }
+
+        public ConcurrencyLimitPolicy build() {
+            if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+            }
+            if (rttTolerance < 1) {
+                throw new IllegalArgumentException("RTT tolerance must be at least 1");
+            }
+            if (smoothing <= 0 || smoothing > 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("Smoothing must be in (0, 1] and backoff ratio in (0, 1)");
+            }
+            if (minRttWindow == null || minRttWindow.isZero() || minRttWindow.isNegative()) {
+                throw new IllegalArgumentException("Minimum RTT window must be positive");
+            }
+            if (maxQueueSize < 0 || queueTimeout == null || queueTimeout.isNegative()) {
+                throw new IllegalArgumentException("Queue size and timeout must not be negative");
+            }
+            return new ConcurrencyLimitPolicy(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,217 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientOverloadedException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the calls in flight to a limit derived from the observed round-trip times.
+ * See {@link ConcurrencyLimitPolicy} for how the limit is adjusted.
+ */
+public class ConcurrencyLimiter {
+    /**
+     * What a completed call says about the server's capacity.
+     */
+    enum Outcome {
+        /** The call completed, its round-trip time is a valid sample. */
+        SUCCESS,
+        /** The call timed out, failed in transport or was throttled. */
+        DROPPED,
+        /** The call says nothing about the server, e.g. it was cancelled by the caller. */
+        IGNORED
+    }
+
+    private final ConcurrencyLimitPolicy policy;
+    private final long minRttWindowNanos;
+    private final LongAdder rejectedCounter;
+    private final LongAdder queuedCounter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long minRttSince = System.nanoTime();
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+
+    ConcurrencyLimiter(ConcurrencyLimitPolicy policy, LongAdder rejectedCounter, LongAdder queuedCounter) {
+        this.policy = policy;
+        this.limit = policy.getInitialLimit();
+        this.minRttWindowNanos = policy.getMinRttWindow().toNanos();
+        this.rejectedCounter = rejectedCounter;
+        this.queuedCounter = queuedCounter;
+    }
+
+    /**
+     * Gets the number of calls currently allowed in flight.
+     *
+     * @return the current limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of calls currently waiting for a slot.
+     *
+     * @return the queue length
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the minimum round-trip time of the current window.
+     *
+     * @return the minimum round-trip time in microseconds, or -1 if no call has completed yet
+     */
+    public long getMinRttMicros() {
+        lock.lock();
+        try {
+            return minRttNanos == Long.MAX_VALUE ? -1 : TimeUnit.NANOSECONDS.toMicros(minRttNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of calls shed because the limit was reached.
+     *
+     * @return the number of rejected calls
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of calls that had to wait for a slot.
+     *
+     * @return the number of queued calls
+     */
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if the limit is reached and the queue has room.
+     *
+     * @param deadline the call's deadline, bounding the time spent in the queue; may be null
+     * @throws NexusClientOverloadedException if the call is shed
+     */
+    void acquire(Deadline deadline) throws NexusClientException {
+        lock.lock();
+        try {
+            // Queued calls go first, a new call only bypasses the queue when nobody is waiting
+            if (waiting == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= policy.getMaxQueueSize()) {
+                throw shed("Concurrency limit of " + (int) limit + " reached");
+            }
+
+            long waitNanos = policy.getQueueTimeout().toNanos();
+            if (deadline != null) {
+                waitNanos = Math.min(waitNanos, deadline.remainingNanos());
+            }
+            waiting++;
+            queued.increment();
+            queuedCounter.increment();
+            try {
+                while (inFlight >= (int) limit) {
+                    if (waitNanos <= 0) {
+                        if (deadline != null && deadline.isExpired()) {
+                            throw new NexusClientDeadlineExceededException("HTTP request deadline exceeded while waiting for the concurrency limit");
+                        }
+                        throw shed("Timed out waiting for the concurrency limit of " + (int) limit);
+                    }
+                    waitNanos = slotAvailable.awaitNanos(waitNanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NexusClientException("HTTP request interrupted", e);
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot and adjusts the limit from the call's outcome.
+     *
+     * @param rttNanos the time the call took, from acquiring the slot until it completed
+     */
+    void release(long rttNanos, Outcome outcome) {
+        lock.lock();
+        try {
+            int inFlightAtCompletion = inFlight--;
+            if (outcome == Outcome.DROPPED) {
+                limit = Math.max(policy.getMinLimit(), limit * policy.getBackoffRatio());
+            } else if (outcome == Outcome.SUCCESS) {
+                update(rttNanos, inFlightAtCompletion);
+            }
+            if (waiting > 0) {
+                slotAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtCompletion) {
+        long now = System.nanoTime();
+        if (now - minRttSince > minRttWindowNanos) {
+            // Start a new window, so a baseline that has moved for good is picked up
+            minRttNanos = rttNanos;
+            minRttSince = now;
+        } else if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+
+        // A client using less than half its limit has not tested it, so there is nothing to learn
+        if (inFlightAtCompletion * 2 < limit) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, policy.getRttTolerance() * minRttNanos / Math.max(rttNanos, 1)));
+        // The square root allows some queueing, so the limit can keep probing for more capacity
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - policy.getSmoothing()) + target * policy.getSmoothing();
+        limit = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), smoothed));
+    }
+
+    private NexusClientOverloadedException shed(String message) {
+        rejected.increment();
+        rejectedCounter.increment();
+        return new NexusClientOverloadedException(message);
+    }
+}
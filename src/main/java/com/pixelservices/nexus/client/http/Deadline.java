@@ -0,0 +1,72 @@
+package com.pixelservices.nexus.client.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An absolute point in time by which a (possibly multi-step) operation must complete.
+ * Deadlines are based on {@link System#nanoTime()} and are therefore immune to wall clock changes.
+ */
+public final class Deadline {
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a deadline that expires after the given duration from now.
+     *
+     * @param timeout the time until the deadline expires
+     * @return the deadline
+     */
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Gets the time remaining until the deadline expires.
+     *
+     * @return the remaining time in nanoseconds, zero or negative if expired
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * Gets the time remaining until the deadline expires, rounded up to whole milliseconds.
+     *
+     * @return the remaining time in milliseconds, zero if expired
+     */
+    public long remainingMillis() {
+        long remaining = remainingNanos();
+        return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining + 999_999);
+    }
+
+    /**
+     * Checks if the deadline has expired.
+     *
+     * @return true if the deadline has expired
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Returns the earlier of this deadline and the given one.
+     *
+     * @param other the other deadline, may be null
+     * @return the earlier deadline
+     */
+    public Deadline min(Deadline other) {
+        if (other == null || deadlineNanos - other.deadlineNanos <= 0) {
+            return this;
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline(remaining=" + TimeUnit.NANOSECONDS.toMillis(remainingNanos()) + "ms)";
+    }
+}
@@ -1,19 +1,51 @@
 package com.pixelservices.nexus.client.http;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pixelservices.logger.Logger;
 import com.pixelservices.logger.LoggerFactory;
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientHttpException;
+import com.pixelservices.nexus.client.jfr.RequestEvent;
+import com.pixelservices.nexus.client.jfr.RetryEvent;
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.client.methods.*;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  * Default implementation of the HttpClient interface using Apache HTTP Client.
@@ -21,106 +53,634 @@ import java.util.Map;
  */
 public class DefaultHttpClient implements HttpClient {
     private static final Logger logger = LoggerFactory.getLogger(DefaultHttpClient.class);
-    
-    private final String baseUrl;
-    private final String token;
-    private final String vendorId;
+    private static final Endpoint PING = EndpointTemplate.of("/ping").expand();
+    private static final int UNSUPPORTED_MEDIA_TYPE = 415;
+
+    private final LoadBalancer loadBalancer;
+    private final NexusRuntime runtime;
+    private final boolean ownsRuntime;
     private final CloseableHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final PriorityLanes priorityLanes;
+
+    // Wire format negotiation (no Accept header when JSON is preferred)
+    private final WireFormat wireFormat;
+    private final String acceptHeader;
+
+    // Response bodies
+    private final ResponseBufferPool responseBuffers;
+    private final int maxResponseBodySize;
+    private final int maxErrorBodySize;
+    private final boolean stacklessErrors;
+
+    // Interceptors, in chain order
+    private final RequestInterceptor[] interceptors;
+    private final TimingInterceptor timingInterceptor;
+    private final AuthenticationInterceptor authenticationInterceptor;
+
+    // Timeouts
+    private final RequestConfig defaultRequestConfig;
+    private final Duration requestTimeout;
+    private final ScheduledExecutorService deadlineScheduler;
+
+    // Concurrency limiting (null when disabled)
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final LongSupplier limitSource;
+
+    // Hedging (null when disabled)
+    private final HedgingPolicy hedgingPolicy;
+    private final HedgeBudget hedgeBudget;
+    private final HedgeMetrics hedgeMetrics;
+    private final ExecutorService hedgeExecutor;
 
     public DefaultHttpClient(String baseUrl, String token, String vendorId) {
-        this.baseUrl = baseUrl;
-        this.token = token;
-        this.vendorId = vendorId;
-        this.httpClient = HttpClients.createDefault();
-        this.objectMapper = new ObjectMapper();
+        this(builder(baseUrl, token, vendorId));
     }
 
-    @Override
-    public <T> ApiResponse<T> get(String endpoint, Class<T> responseType) throws NexusClientException {
-        HttpGet request = new HttpGet(baseUrl + endpoint);
-        return executeRequest(request, responseType);
+    private DefaultHttpClient(Builder builder) {
+        List<String> baseUrls = new ArrayList<>();
+        for (String baseUrl : builder.baseUrls != null ? builder.baseUrls : List.of(builder.baseUrl)) {
+            baseUrls.add(normalizeBaseUrl(baseUrl));
+        }
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one base URL is required");
+        }
+        this.loadBalancer = new LoadBalancer(baseUrls, builder.loadBalancingPolicy != null ? builder.loadBalancingPolicy : LoadBalancingPolicy.DEFAULT);
+        this.ownsRuntime = builder.runtime == null;
+        this.runtime = ownsRuntime ? NexusRuntime.builder().build() : builder.runtime;
+
+        // Timing and logging wrap everything, authentication runs closest to the transport
+        this.timingInterceptor = new TimingInterceptor(runtime.getMetrics());
+        List<RequestInterceptor> chain = new ArrayList<>();
+        chain.add(timingInterceptor);
+        chain.add(new LoggingInterceptor(builder.logSampleRate));
+        chain.addAll(builder.interceptors);
+        this.authenticationInterceptor = new AuthenticationInterceptor(builder.vendorId, builder.token);
+        chain.add(authenticationInterceptor);
+        this.interceptors = chain.toArray(new RequestInterceptor[0]);
+
+        this.defaultRequestConfig = RequestConfig.custom()
+                .setConnectTimeout(toTimeoutMillis(builder.connectTimeout))
+                .setConnectionRequestTimeout(toTimeoutMillis(builder.connectTimeout))
+                .setSocketTimeout(toTimeoutMillis(builder.readTimeout))
+                .build();
+        this.requestTimeout = builder.requestTimeout;
+        this.httpClient = runtime.getHttpClient();
+        this.objectMapper = runtime.getObjectMapper();
+        this.priorityLanes = runtime.getPriorityLanes();
+        List<HttpHost> hosts = new ArrayList<>();
+        for (Upstream upstream : loadBalancer.getUpstreams()) {
+            hosts.add(upstream.getHost());
+        }
+        priorityLanes.addRoutes(hosts);
+        this.wireFormat = builder.wireFormat;
+        this.acceptHeader = wireFormat.isBinary() ? wireFormat.getMediaType() + ", application/json;q=0.5" : null;
+        this.responseBuffers = runtime.getResponseBuffers();
+        this.maxResponseBodySize = builder.maxResponseBodySize;
+        this.maxErrorBodySize = builder.maxErrorBodySize;
+        this.stacklessErrors = builder.stacklessErrors;
+        this.deadlineScheduler = runtime.getScheduler();
+        this.loadBalancer.start(runtime.getScheduler(), runtime.getExecutor(), this::probe);
+
+        // The limit is per client, the runtime's metrics add up the clients sharing it
+        MetricsRegistry metrics = runtime.getMetrics();
+        if (builder.concurrencyLimitPolicy != null) {
+            this.concurrencyLimiter = new ConcurrencyLimiter(builder.concurrencyLimitPolicy, metrics.counter("http.limiter.rejected"), metrics.counter("http.limiter.queued"));
+            this.limitSource = concurrencyLimiter::getLimit;
+            metrics.gauge("http.limiter.limit").add(limitSource);
+        } else {
+            this.concurrencyLimiter = null;
+            this.limitSource = null;
+        }
+
+        this.hedgingPolicy = builder.hedgingPolicy;
+        if (hedgingPolicy != null) {
+            this.hedgeBudget = new HedgeBudget(hedgingPolicy.getBudgetRatio(), hedgingPolicy.getMaxBurst());
+            this.hedgeMetrics = new HedgeMetrics();
+            this.hedgeExecutor = runtime.getExecutor();
+        } else {
+            this.hedgeBudget = null;
+            this.hedgeMetrics = null;
+            this.hedgeExecutor = null;
+        }
     }
 
     @Override
-    public <T> ApiResponse<T> post(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        HttpPost request = new HttpPost(baseUrl + endpoint);
-        return executeRequestWithBody(request, body, responseType);
+    public <T> ApiResponse<T> execute(HttpMethod method, Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        if (options == null) {
+            options = RequestOptions.DEFAULT;
+        }
+        Deadline deadline = options.getDeadline();
+        if (requestTimeout != null) {
+            deadline = Deadline.after(requestTimeout).min(deadline);
+        }
+
+        RequestContext context = new RequestContext(method, endpoint, options);
+        int entered = 0;
+        try {
+            for (; entered < interceptors.length; entered++) {
+                ApiResponse<?> shortCircuit = interceptors[entered].beforeSend(context);
+                if (shortCircuit != null) {
+                    @SuppressWarnings("unchecked")
+                    ApiResponse<T> response = (ApiResponse<T>) shortCircuit;
+                    afterReceive(context, response, entered - 1);
+                    return response;
+                }
+            }
+
+            ApiResponse<T> response = concurrencyLimiter != null
+                    ? executeLimited(method, context, body, responseType, deadline)
+                    : executeTransport(method, context, body, responseType, deadline);
+            afterReceive(context, response, interceptors.length - 1);
+            return response;
+        } catch (RuntimeException e) {
+            // Failures of interceptors or of the object mapper reach the hooks and the caller as client exceptions
+            NexusClientException failure = e instanceof NexusClientException
+                    ? (NexusClientException) e
+                    : new NexusClientException("Request to " + context.getEndpoint().getTemplate() + " failed", e);
+            for (int i = entered - 1; i >= 0; i--) {
+                interceptors[i].onError(context, failure);
+            }
+            throw failure;
+        }
     }
 
-    @Override
-    public <T> ApiResponse<T> put(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        HttpPut request = new HttpPut(baseUrl + endpoint);
-        return executeRequestWithBody(request, body, responseType);
+    private <T> ApiResponse<T> executeTransport(HttpMethod method, RequestContext context, Object body, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        if (method == HttpMethod.GET && hedgingPolicy != null) {
+            return executeHedged(context, responseType, deadline);
+        }
+        return executeBalanced(method, context, body, responseType, deadline);
     }
 
-    @Override
-    public <T> ApiResponse<T> delete(String endpoint, Class<T> responseType) throws NexusClientException {
-        HttpDelete request = new HttpDelete(baseUrl + endpoint);
-        return executeRequest(request, responseType);
-    }
-
-    private <T> ApiResponse<T> executeRequest(HttpRequestBase request, Class<T> responseType) throws NexusClientException {
-        addAuthenticationHeaders(request);
-        
-        long startTime = System.currentTimeMillis();
-        try (CloseableHttpResponse response = httpClient.execute(request)) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            ApiResponse<T> apiResponse = processResponse(response, responseType);
-            
-            if (apiResponse.isSuccess()) {
-                logger.debug("Request to " + request.getURI() + " completed successfully in " + responseTime + "ms");
-            } else {
-                logger.warn("Request to " + request.getURI() + " failed with status " + apiResponse.getStatusCode() + " in " + responseTime + "ms");
-            }
-            
-            return apiResponse;
+    /**
+     * Sends the request once the concurrency limiter grants a slot, feeding the call's round-trip
+     * time back into the limit. Throttling responses and transport failures signal overload.
+     */
+    private <T> ApiResponse<T> executeLimited(HttpMethod method, RequestContext context, Object body, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        concurrencyLimiter.acquire(deadline);
+        ConcurrencyLimiter.Outcome outcome = ConcurrencyLimiter.Outcome.IGNORED;
+        long startNanos = System.nanoTime();
+        try {
+            ApiResponse<T> response = executeTransport(method, context, body, responseType, deadline);
+            int statusCode = response.getStatusCode();
+            outcome = statusCode == 429 || statusCode == 503 ? ConcurrencyLimiter.Outcome.DROPPED : ConcurrencyLimiter.Outcome.SUCCESS;
+            return response;
+        } catch (NexusClientException e) {
+            if (e instanceof NexusClientDeadlineExceededException || (!(e instanceof NexusClientCancelledException) && e.getCause() instanceof IOException)) {
+                outcome = ConcurrencyLimiter.Outcome.DROPPED;
+            }
+            throw e;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - startNanos, outcome);
+        }
+    }
+
+    private void afterReceive(RequestContext context, ApiResponse<?> response, int from) {
+        for (int i = from; i >= 0; i--) {
+            interceptors[i].afterReceive(context, response);
+        }
+    }
+
+    /**
+     * Sends the request to the endpoint picked by the load balancer. If no connection could be
+     * established, the request was never sent, so it is safe to fail over to another endpoint.
+     */
+    private <T> ApiResponse<T> executeBalanced(HttpMethod method, RequestContext context, Object body, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        long tried = 0;
+        int index = loadBalancer.select(tried);
+        while (true) {
+            Upstream upstream = loadBalancer.get(index);
+            WireFormat format = body != null ? upstream.getWireFormat() : WireFormat.JSON;
+            try {
+                ApiResponse<T> response = executeRequest(createRequest(method, upstream, context.getEndpoint(), body, format), upstream, context, responseType, deadline);
+                if (response.getStatusCode() != UNSUPPORTED_MEDIA_TYPE || !format.isBinary()) {
+                    return response;
+                }
+                // The endpoint refused the body without processing it, so it is safe to send it again as JSON
+                upstream.rejectWireFormat();
+                logger.warn(upstream.getBaseUrl() + " does not accept " + format.getMediaType() + " request bodies, falling back to JSON");
+                RetryEvent.emit(RetryEvent.WIRE_FORMAT_FALLBACK, context.getEndpoint().getTemplate(), upstream.getBaseUrl(), upstream.getBaseUrl(), Long.bitCount(tried) + 2, 0);
+                return executeRequest(createRequest(method, upstream, context.getEndpoint(), body, WireFormat.JSON), upstream, context, responseType, deadline);
+            } catch (NexusClientException e) {
+                tried |= 1L << index;
+                if (!isConnectFailure(e) || (index = loadBalancer.select(tried)) < 0) {
+                    throw e;
+                }
+                logger.warn("Could not connect to " + upstream.getBaseUrl() + ", failing over to " + loadBalancer.get(index).getBaseUrl());
+                RetryEvent.emit(RetryEvent.FAILOVER, context.getEndpoint().getTemplate(), upstream.getBaseUrl(), loadBalancer.get(index).getBaseUrl(), Long.bitCount(tried) + 1, 0);
+            }
+        }
+    }
+
+    private static boolean isConnectFailure(NexusClientException e) {
+        if (e instanceof NexusClientCancelledException || e instanceof NexusClientDeadlineExceededException) {
+            return false;
+        }
+        Throwable cause = e.getCause();
+        return cause instanceof ConnectException
+                || cause instanceof ConnectTimeoutException
+                || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * Checks if an ejected endpoint answers its health check again.
+     */
+    private boolean probe(Upstream upstream) {
+        HttpGet request = new HttpGet(resolve(upstream, PING));
+        request.setConfig(defaultRequestConfig);
+        authenticationInterceptor.applyTo(request);
+        try (CloseableHttpResponse response = httpClient.execute(upstream.getHost(), request)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode() == 200;
         } catch (IOException e) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            logger.error("Failed to execute HTTP request to " + request.getURI() + " in " + responseTime + "ms", e);
-            throw new NexusClientException("HTTP request failed", e);
+            logger.debug("Health probe of " + upstream.getBaseUrl() + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private HttpRequestBase createRequest(HttpMethod method, Upstream upstream, Endpoint endpoint, Object body, WireFormat format) throws NexusClientException {
+        URI uri = resolve(upstream, endpoint);
+        switch (method) {
+            case GET:
+                return new HttpGet(uri);
+            case DELETE:
+                return new HttpDelete(uri);
+            case POST:
+                return withBody(new HttpPost(uri), body, format);
+            case PUT:
+                return withBody(new HttpPut(uri), body, format);
+            default:
+                throw new IllegalArgumentException("Unsupported HTTP method: " + method);
         }
     }
 
-    private <T> ApiResponse<T> executeRequestWithBody(HttpEntityEnclosingRequestBase request, Object body, Class<T> responseType) throws NexusClientException {
-        addAuthenticationHeaders(request);
-        
+    /**
+     * Builds the origin-form request URI. Scheme and authority were parsed once per upstream and are
+     * passed to the transport as the target host, so only the path is parsed per request.
+     */
+    private static URI resolve(Upstream upstream, Endpoint endpoint) {
+        String basePath = upstream.getBasePath();
+        String path = endpoint.getPath();
+        return URI.create(basePath.isEmpty() ? path : basePath.concat(path));
+    }
+
+    /**
+     * Validates the base URL once and strips any trailing slash, so endpoint paths can be appended as is.
+     */
+    private static String normalizeBaseUrl(String baseUrl) {
+        String normalized = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        URI uri = URI.create(normalized);
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new IllegalArgumentException("Invalid base URL: " + baseUrl);
+        }
+        return normalized;
+    }
+
+    private HttpRequestBase withBody(HttpEntityEnclosingRequestBase request, Object body, WireFormat format) throws NexusClientException {
+        if (body == null) {
+            return request;
+        }
         try {
-            if (body != null) {
-                String jsonBody = objectMapper.writeValueAsString(body);
-                request.setEntity(new StringEntity(jsonBody, "UTF-8"));
-                request.setHeader("Content-Type", "application/json");
+            if (format.isBinary()) {
+                request.setEntity(new ByteArrayEntity(runtime.getObjectMapper(format).writeValueAsBytes(body)));
+                request.setHeader("Content-Type", format.getMediaType());
+                return request;
             }
-            return executeRequest(request, responseType);
+            String jsonBody = objectMapper.writeValueAsString(body);
+            request.setEntity(new StringEntity(jsonBody, "UTF-8"));
+            request.setHeader("Content-Type", "application/json");
+            return request;
         } catch (IOException e) {
             logger.error("Failed to serialize request body", e);
             throw new NexusClientException("Failed to serialize request body", e);
         }
     }
 
-    private void addAuthenticationHeaders(HttpRequestBase request) {
-        request.addHeader("X-Vendor-Id", vendorId);
-        request.addHeader("X-Vendor-Access-Token", token);
+    private <T> ApiResponse<T> executeRequest(HttpRequestBase request, Upstream upstream, RequestContext context, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        for (int i = 0; i < context.getHeaderCount(); i++) {
+            request.addHeader(context.getHeader(i));
+        }
+        if (acceptHeader != null) {
+            request.setHeader("Accept", acceptHeader);
+        }
+        RequestOptions options = context.getOptions();
+        for (Map.Entry<String, String> header : options.getHeaders().entrySet()) {
+            request.setHeader(header.getKey(), header.getValue());
+        }
+        applyTimeouts(request, options, deadline);
+
+        // The lane wait replaces the pool lease wait, so it is bounded by the same timeout
+        Priority priority = options.getPriority() != null ? options.getPriority() : Priority.DEFAULT;
+        CancellationToken cancellationToken = options.getCancellationToken();
+        PriorityLanes.Lane lane = null;
+        CancellationToken.Registration cancellation = null;
+        ScheduledFuture<?> deadlineTimer = null;
+
+        // Server errors and transport failures count towards ejecting the endpoint, cancellations say nothing about it
+        boolean started = false;
+        boolean failed = false;
+        boolean cancelled = false;
+        RequestEvent event = null;
+        long startNanos = 0;
+        try {
+            long queueStartNanos = System.nanoTime();
+            lane = priorityLanes.acquire(priority, request.getConfig().getConnectionRequestTimeout(), deadline, cancellationToken);
+            long queueNanos = System.nanoTime() - queueStartNanos;
+
+            // Both cancellation and deadline expiry abort the underlying exchange
+            cancellation = cancellationToken != null ? cancellationToken.register(request::abort) : null;
+            deadlineTimer = deadline != null
+                    ? deadlineScheduler.schedule(request::abort, deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                    : null;
+
+            event = RequestEvent.isRecording() ? beginEvent(request, upstream, context) : null;
+            if (event != null) {
+                event.priority = priority.name();
+                event.queueTime = queueNanos;
+            }
+            upstream.onStart();
+            started = true;
+            startNanos = System.nanoTime();
+            try (CloseableHttpResponse response = httpClient.execute(upstream.getHost(), request)) {
+                if (event != null) {
+                    event.statusCode = response.getStatusLine().getStatusCode();
+                    event.waitTime = System.nanoTime() - startNanos - event.poolLeaseTime - event.connectTime;
+                }
+                ApiResponse<T> apiResponse = processResponse(response, upstream, responseType, event);
+                failed = apiResponse.getStatusCode() >= 500;
+                return apiResponse;
+            } catch (IOException e) {
+                if (event != null) {
+                    event.error = e.toString();
+                }
+                long responseTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                if (cancellationToken != null && cancellationToken.isCancelled()) {
+                    cancelled = true;
+                    throw new NexusClientCancelledException("HTTP request cancelled after " + responseTime + "ms", e);
+                }
+                if (deadline != null && deadline.isExpired()) {
+                    throw new NexusClientDeadlineExceededException("HTTP request deadline exceeded after " + responseTime + "ms", e);
+                }
+                if (request.isAborted()) {
+                    cancelled = true;
+                    logger.debug("Request to " + upstream.getHost().toURI() + request.getURI() + " was aborted after " + responseTime + "ms");
+                    throw new NexusClientException("HTTP request aborted", e);
+                }
+                failed = true;
+                throw new NexusClientException("HTTP request to " + upstream.getHost().toURI() + request.getURI() + " failed after " + responseTime + "ms", e);
+            } catch (NexusClientException e) {
+                if (event != null) {
+                    event.error = e.getMessage();
+                }
+                throw e;
+            }
+        } finally {
+            // Everything taken before a failure is handed back, including a lane slot won just before it
+            if (cancellation != null) {
+                cancellation.close();
+            }
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+            long latencyNanos = started ? System.nanoTime() - startNanos : 0;
+            if (lane != null) {
+                priorityLanes.release(lane, latencyNanos);
+            }
+            if (started) {
+                if (cancelled) {
+                    upstream.onCancel();
+                } else {
+                    loadBalancer.onComplete(upstream, latencyNanos, failed);
+                }
+            }
+            if (event != null) {
+                PooledConnectionManager.unbind();
+                event.commit();
+            }
+        }
+    }
+
+    private static RequestEvent beginEvent(HttpRequestBase request, Upstream upstream, RequestContext context) {
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        event.method = request.getMethod();
+        event.endpoint = context.getEndpoint().getTemplate();
+        event.baseUrl = upstream.getBaseUrl();
+        if (request instanceof HttpEntityEnclosingRequestBase) {
+            HttpEntity entity = ((HttpEntityEnclosingRequestBase) request).getEntity();
+            event.requestBytes = entity != null ? entity.getContentLength() : 0;
+        }
+        // The connection manager adds pool lease and connect times while the request runs on this thread
+        PooledConnectionManager.bind(event);
+        return event;
     }
 
-    private <T> ApiResponse<T> processResponse(CloseableHttpResponse response, Class<T> responseType) throws NexusClientException {
+    /**
+     * Applies the per-call timeouts, clipping all of them to the time left until the deadline.
+     */
+    void applyTimeouts(HttpRequestBase request, RequestOptions options, Deadline deadline) throws NexusClientException {
+        if (deadline == null && options.getConnectTimeout() == null && options.getReadTimeout() == null) {
+            // The connection pool is shared between clients, so the client's defaults are set per request
+            request.setConfig(defaultRequestConfig);
+            return;
+        }
+        int connectTimeout = options.getConnectTimeout() != null
+                ? toTimeoutMillis(options.getConnectTimeout())
+                : defaultRequestConfig.getConnectTimeout();
+        int readTimeout = options.getReadTimeout() != null
+                ? toTimeoutMillis(options.getReadTimeout())
+                : defaultRequestConfig.getSocketTimeout();
+        int leaseTimeout = defaultRequestConfig.getConnectionRequestTimeout();
+
+        if (deadline != null) {
+            long remaining = deadline.remainingMillis();
+            if (remaining <= 0) {
+                throw new NexusClientDeadlineExceededException("HTTP request deadline exceeded before sending");
+            }
+            connectTimeout = clipTimeout(connectTimeout, remaining);
+            readTimeout = clipTimeout(readTimeout, remaining);
+            leaseTimeout = clipTimeout(leaseTimeout, remaining);
+        }
+
+        request.setConfig(RequestConfig.copy(defaultRequestConfig)
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(leaseTimeout)
+                .build());
+    }
+
+    private static int clipTimeout(int timeoutMillis, long remainingMillis) {
+        if (timeoutMillis <= 0 || timeoutMillis > remainingMillis) {
+            return (int) Math.min(remainingMillis, Integer.MAX_VALUE);
+        }
+        return timeoutMillis;
+    }
+
+    private static int toTimeoutMillis(Duration timeout) {
+        if (timeout == null) {
+            return -1;
+        }
+        return (int) Math.min(timeout.toMillis(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Executes an idempotent GET, sending a second identical request if the first one has not
+     * answered within the hedge delay. The first response wins and the other exchange is aborted.
+     */
+    private <T> ApiResponse<T> executeHedged(RequestContext context, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        hedgeMetrics.recordRequest();
+        hedgeBudget.deposit();
+
+        CompletionService<ApiResponse<T>> completionService = new ExecutorCompletionService<>(hedgeExecutor);
+        int primaryIndex = loadBalancer.select(0);
+        Upstream primaryUpstream = loadBalancer.get(primaryIndex);
+        HttpGet primary = new HttpGet(resolve(primaryUpstream, context.getEndpoint()));
+        Future<ApiResponse<T>> primaryFuture = completionService.submit(() -> executeTimedRequest(primary, primaryUpstream, context, responseType, deadline));
+        HttpGet hedge = null;
+        Future<ApiResponse<T>> hedgeFuture = null;
+        Future<ApiResponse<T>> winner = null;
+
+        try {
+            long hedgeDelayMicros = hedgeDelayMicros();
+            Future<ApiResponse<T>> completed = completionService.poll(hedgeDelayMicros, TimeUnit.MICROSECONDS);
+            if (completed == null) {
+                if (hedgeBudget.tryAcquire()) {
+                    // Prefer another endpoint for the hedge, the primary's may be the slow one
+                    int hedgeIndex = loadBalancer.select(1L << primaryIndex);
+                    Upstream hedgeUpstream = loadBalancer.get(hedgeIndex >= 0 ? hedgeIndex : primaryIndex);
+                    HttpGet hedgeRequest = new HttpGet(resolve(hedgeUpstream, context.getEndpoint()));
+                    hedge = hedgeRequest;
+                    hedgeFuture = completionService.submit(() -> executeTimedRequest(hedgeRequest, hedgeUpstream, context, responseType, deadline));
+                    hedgeMetrics.recordFired();
+                    RetryEvent.emit(RetryEvent.HEDGE, context.getEndpoint().getTemplate(), primaryUpstream.getBaseUrl(), hedgeUpstream.getBaseUrl(), 2, TimeUnit.MICROSECONDS.toMillis(hedgeDelayMicros));
+                } else {
+                    hedgeMetrics.recordBudgetExhausted();
+                }
+                completed = completionService.take();
+            }
+
+            try {
+                ApiResponse<T> response = completed.get();
+                winner = completed;
+                return response;
+            } catch (ExecutionException e) {
+                if (hedgeFuture == null) {
+                    throw unwrap(e);
+                }
+                // One of the two exchanges failed, the other one may still succeed
+                Future<ApiResponse<T>> remaining = completionService.take();
+                try {
+                    ApiResponse<T> response = remaining.get();
+                    winner = remaining;
+                    return response;
+                } catch (ExecutionException e2) {
+                    throw unwrap(e2);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NexusClientException("HTTP request interrupted", e);
+        } finally {
+            if (winner != null && winner == hedgeFuture) {
+                hedgeMetrics.recordWon();
+            }
+            if (winner != primaryFuture) {
+                primary.abort();
+                primaryFuture.cancel(true);
+            }
+            if (hedge != null && winner != hedgeFuture) {
+                hedge.abort();
+                hedgeFuture.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Executes one of the exchanges of a hedged request, recording its latency. Aborted losers are
+     * recorded too, with the time until they were aborted, so slow exchanges do not drop out of the history.
+     */
+    private <T> ApiResponse<T> executeTimedRequest(HttpRequestBase request, Upstream upstream, RequestContext context, Class<T> responseType, Deadline deadline) throws NexusClientException {
+        long startTime = System.nanoTime();
+        try {
+            return executeRequest(request, upstream, context, responseType, deadline);
+        } finally {
+            hedgeMetrics.getLatency().record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+        }
+    }
+
+    private long hedgeDelayMicros() {
+        long fixedDelay = TimeUnit.NANOSECONDS.toMicros(hedgingPolicy.getDelay().toNanos());
+        if (hedgingPolicy.getPercentile() <= 0 || hedgeMetrics.getLatency().getCount() < hedgingPolicy.getMinSamples()) {
+            return fixedDelay;
+        }
+        long minDelay = TimeUnit.NANOSECONDS.toMicros(hedgingPolicy.getMinDelay().toNanos());
+        return Math.max(minDelay, hedgeMetrics.getLatency().getPercentile(hedgingPolicy.getPercentile()));
+    }
+
+    private static NexusClientException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof NexusClientException) {
+            return (NexusClientException) cause;
+        }
+        return new NexusClientException("HTTP request failed", cause);
+    }
+
+    private <T> ApiResponse<T> processResponse(CloseableHttpResponse response, Upstream upstream, Class<T> responseType, RequestEvent event) throws IOException, NexusClientException {
         int statusCode = response.getStatusLine().getStatusCode();
-        String rawResponse = null;
         T data = null;
+        String rawResponse = null;
         boolean success = statusCode >= 200 && statusCode < 300;
-        
-        try {
-            rawResponse = EntityUtils.toString(response.getEntity());
-            
-            if (success && rawResponse != null && !rawResponse.trim().isEmpty()) {
-                if (responseType != Void.class) {
-                    data = objectMapper.readValue(rawResponse, responseType);
-                }
+
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            long contentLength = entity.getContentLength();
+            if (success && contentLength > maxResponseBodySize) {
+                throw responseTooLarge(statusCode, contentLength + " bytes");
             }
-        } catch (IOException e) {
-            logger.error("Failed to parse response body", e);
-            if (success) {
-                throw new NexusClientException("Failed to parse response body", e);
+
+            // The body is read in whatever format the server chose. Answering in the preferred
+            // binary format tells us the endpoint understands it, so request bodies switch over too.
+            Header contentType = entity.getContentType();
+            WireFormat format = WireFormat.fromContentType(contentType != null ? contentType.getValue() : null);
+            if (format.isBinary() && format == wireFormat) {
+                upstream.acceptWireFormat(format);
+            }
+
+            // Failures while reading the body are transport failures (e.g. an aborted exchange).
+            // A body over the limit is not read any further: the stream is left unconsumed, so
+            // closing the response discards the connection instead of draining it.
+            long readStart = System.nanoTime();
+            try (ResponseBufferPool.Buffer buffer = responseBuffers.acquire()) {
+                InputStream content = entity.getContent();
+                boolean complete = buffer.readFrom(content, success ? maxResponseBodySize : maxErrorBodySize, contentLength);
+                if (complete) {
+                    content.close();
+                }
+
+                if (success) {
+                    if (!complete) {
+                        throw responseTooLarge(statusCode, "more than " + maxResponseBodySize + " bytes");
+                    }
+                    if (responseType != Void.class && !buffer.isBlank()) {
+                        try {
+                            data = runtime.getObjectMapper(format).readValue(buffer.array(), 0, buffer.length(), responseType);
+                        } catch (JsonProcessingException e) {
+                            logger.error("Failed to parse response body", e);
+                            throw new NexusClientException("Failed to parse response body", e);
+                        }
+                    }
+                } else {
+                    rawResponse = format.isBinary() && complete ? toText(buffer, format) : buffer.toString(charsetOf(entity));
+                    if (!complete) {
+                        rawResponse += "... [truncated]";
+                    }
+                }
+                if (event != null) {
+                    event.wireFormat = format.name();
+                    event.responseBytes = buffer.length();
+                    event.deserializeTime = System.nanoTime() - readStart;
+                }
             }
         }
 
@@ -137,18 +697,246 @@ public class DefaultHttpClient implements HttpClient {
                 .timestamp(LocalDateTime.now())
                 .headers(headers)
                 .rawResponse(rawResponse)
+                .stacklessErrors(stacklessErrors)
                 .build();
     }
 
+    private NexusClientHttpException responseTooLarge(int statusCode, String size) {
+        return new NexusClientHttpException("Response body of " + size + " exceeds the maximum of " + maxResponseBodySize + " bytes", statusCode, null);
+    }
+
     /**
-     * Closes the underlying HTTP client and releases resources.
+     * Converts a binary error body to JSON text, so the raw response stays readable.
      */
-    public void close() {
+    private String toText(ResponseBufferPool.Buffer buffer, WireFormat format) {
         try {
-            httpClient.close();
-            logger.info("HTTP client closed.");
+            return runtime.getObjectMapper(format).readTree(buffer.array(), 0, buffer.length()).toString();
         } catch (IOException e) {
-            logger.error("Failed to close HTTP client", e);
+            return "<" + buffer.length() + " bytes of " + format.getMediaType() + ">";
+        }
+    }
+
+    private static Charset charsetOf(HttpEntity entity) {
+        try {
+            ContentType contentType = ContentType.get(entity);
+            if (contentType != null && contentType.getCharset() != null) {
+                return contentType.getCharset();
+            }
+        } catch (RuntimeException e) {
+            // Malformed or unsupported content type, fall back to the JSON default
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Gets the built-in timing interceptor, which records latency and outcome of every request.
+     *
+     * @return the timing interceptor
+     */
+    public TimingInterceptor getTimingInterceptor() {
+        return timingInterceptor;
+    }
+
+    /**
+     * Gets the hedging metrics.
+     *
+     * @return the hedging metrics, or null if hedging is disabled
+     */
+    public HedgeMetrics getHedgeMetrics() {
+        return hedgeMetrics;
+    }
+
+    /**
+     * Gets the concurrency limiter, with this client's current limit and rejection counts.
+     * The runtime's {@code http.limiter.limit} gauge and {@code http.limiter.rejected} and
+     * {@code http.limiter.queued} counters add up every client sharing the runtime.
+     *
+     * @return the concurrency limiter, or null if concurrency limiting is disabled
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Gets the runtime providing the connection pool, threads and metrics registry.
+     *
+     * @return the runtime
+     */
+    public NexusRuntime getRuntime() {
+        return runtime;
+    }
+
+    /**
+     * Gets the endpoints requests are spread over, with their load and health state.
+     *
+     * @return the endpoints, in the order their base URLs were configured
+     */
+    public List<Upstream> getUpstreams() {
+        return loadBalancer.getUpstreams();
+    }
+
+    /**
+     * Closes the client. The runtime is only closed if it was created for this client.
+     */
+    public void close() {
+        loadBalancer.stop();
+        if (limitSource != null) {
+            runtime.getMetrics().gauge("http.limiter.limit").remove(limitSource);
+        }
+        if (ownsRuntime) {
+            runtime.close();
+        }
+    }
+
+    public static class Builder {
+        private final String baseUrl;
+        private final String token;
+        private final String vendorId;
+        private final List<RequestInterceptor> interceptors = new ArrayList<>();
+        private NexusRuntime runtime;
+        private List<String> baseUrls;
+        private LoadBalancingPolicy loadBalancingPolicy;
+        private HedgingPolicy hedgingPolicy;
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration requestTimeout;
+        private double logSampleRate;
+        private int maxResponseBodySize = 32 * 1024 * 1024;
+        private int maxErrorBodySize = 4 * 1024;
+        private WireFormat wireFormat = WireFormat.JSON;
+        private boolean stacklessErrors;
+
+        private Builder(String baseUrl, String token, String vendorId) {
+            this.baseUrl = baseUrl;
+            this.token = token;
+            this.vendorId = vendorId;
+        }
+
+        /**
+         * Builds the client on a shared runtime. Without one, the client creates its own runtime
+         * and closes it when the client is closed.
+         */
+        public Builder runtime(NexusRuntime runtime) {
+            this.runtime = runtime;
+            return this;
+        }
+
+        /**
+         * Spreads requests over several base URLs, replacing the base URL the builder was created with.
+         */
+        public Builder baseUrls(List<String> baseUrls) {
+            this.baseUrls = baseUrls;
+            return this;
+        }
+
+        /**
+         * Sets how requests are spread over the base URLs, or null for the default policy.
+         */
+        public Builder loadBalancing(LoadBalancingPolicy loadBalancingPolicy) {
+            this.loadBalancingPolicy = loadBalancingPolicy;
+            return this;
         }
+
+        public Builder hedging(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Limits the calls in flight adaptively, or disables limiting if null.
+         */
+        public Builder concurrencyLimit(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        /**
+         * Adds an interceptor to the chain. Interceptors run in the order they are added,
+         * after the built-in timing and logging interceptors and before authentication.
+         */
+        public Builder interceptor(RequestInterceptor interceptor) {
+            this.interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * Sets the default connect timeout (also used as the connection pool lease timeout).
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the default read (socket) timeout.
+         */
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the default total time allowed for a single call, or null for no limit.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of successful requests that are logged. Failures are always logged.
+         */
+        public Builder logSampleRate(double logSampleRate) {
+            this.logSampleRate = logSampleRate;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size, in bytes, of a successful response body. Larger responses fail
+         * without being read further.
+         */
+        public Builder maxResponseBodySize(int maxResponseBodySize) {
+            this.maxResponseBodySize = maxResponseBodySize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of bytes of an error response body kept in the {@link ApiResponse}.
+         * Longer error bodies are truncated.
+         */
+        public Builder maxErrorBodySize(int maxErrorBodySize) {
+            this.maxErrorBodySize = maxErrorBodySize;
+            return this;
+        }
+
+        /**
+         * Sets the preferred wire format. With a binary format, responses are requested in it
+         * (falling back to JSON) and request bodies use it once an endpoint has answered in it.
+         */
+        public Builder wireFormat(WireFormat wireFormat) {
+            this.wireFormat = wireFormat != null ? wireFormat : WireFormat.JSON;
+            return this;
+        }
+
+        /**
+         * Skips capturing stack traces for expected error outcomes (not found, rate limited),
+         * which is worthwhile when they are frequent, e.g. existence checks.
+         */
+        public Builder stacklessErrors(boolean stacklessErrors) {
+            this.stacklessErrors = stacklessErrors;
+            return this;
+        }
+
+        public DefaultHttpClient build() {
+            if (maxResponseBodySize <= 0 || maxErrorBodySize < 0) {
+                throw new IllegalArgumentException("Maximum response body sizes must not be negative");
+            }
+            return new DefaultHttpClient(this);
+        }
+    }
+
+    public static Builder builder(String baseUrl, String token, String vendorId) {
+        return new Builder(baseUrl, token, vendorId);
     }
 }
@@ -0,0 +1,53 @@
+package com.pixelservices.nexus.client.http;
+
+/**
+ * A concrete API endpoint path together with the template it was expanded from.
+ * The template identifies the endpoint independently of the IDs in the path,
+ * e.g. for metrics or logging.
+ */
+public final class Endpoint {
+    private final String path;
+    private final String template;
+
+    Endpoint(String path, String template) {
+        this.path = path;
+        this.template = template;
+    }
+
+    /**
+     * Creates an endpoint for a literal path, which also serves as its template.
+     *
+     * @param path the endpoint path, relative to the base URL
+     * @return the endpoint
+     */
+    public static Endpoint of(String path) {
+        return new Endpoint(path, path);
+    }
+
+    /**
+     * Appends a query string to the path. The template is kept, so all queries against the
+     * same endpoint are reported together.
+     *
+     * @param query the URL-encoded query string, without the leading {@code ?}
+     * @return the endpoint with the query, or this endpoint if the query is empty
+     */
+    public Endpoint withQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return this;
+        }
+        return new Endpoint(path + (path.indexOf('?') < 0 ? '?' : '&') + query, template);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -0,0 +1,173 @@
+package com.pixelservices.nexus.client.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled endpoint path with {@code {placeholder}} segments, e.g. {@code /api/nexus/users/{userId}}.
+ * Templates are parsed once, so expanding them only costs a single, exactly sized string build.
+ * Placeholder values are percent-encoded as path segments.
+ */
+public final class EndpointTemplate {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String template;
+    private final String[] literals;
+    private final int literalLength;
+    private final Endpoint staticEndpoint;
+
+    private EndpointTemplate(String template, String[] literals) {
+        this.template = template;
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        this.staticEndpoint = literals.length == 1 ? new Endpoint(template, template) : null;
+    }
+
+    /**
+     * Parses an endpoint template.
+     *
+     * @param template the template, with placeholders enclosed in braces
+     * @return the parsed template
+     */
+    public static EndpointTemplate of(String template) {
+        List<String> literals = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder in endpoint template: " + template);
+            }
+            literals.add(template.substring(start, open));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        return new EndpointTemplate(template, literals.toArray(new String[0]));
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the number of placeholders in this template.
+     *
+     * @return the number of placeholders
+     */
+    public int getPlaceholderCount() {
+        return literals.length - 1;
+    }
+
+    /**
+     * Expands a template without placeholders. The same endpoint instance is returned on every call.
+     *
+     * @return the endpoint
+     */
+    public Endpoint expand() {
+        if (staticEndpoint == null) {
+            throw new IllegalArgumentException("Endpoint template " + template + " requires " + getPlaceholderCount() + " values");
+        }
+        return staticEndpoint;
+    }
+
+    /**
+     * Expands a template with a single placeholder.
+     *
+     * @param value the placeholder value
+     * @return the endpoint
+     */
+    public Endpoint expand(String value) {
+        if (literals.length != 2) {
+            throw new IllegalArgumentException("Endpoint template " + template + " requires " + getPlaceholderCount() + " values");
+        }
+        value = encodeSegment(value);
+        String path = new StringBuilder(literalLength + value.length())
+                .append(literals[0])
+                .append(value)
+                .append(literals[1])
+                .toString();
+        return new Endpoint(path, template);
+    }
+
+    /**
+     * Expands a template, substituting the placeholders in order.
+     *
+     * @param values the placeholder values
+     * @return the endpoint
+     */
+    public Endpoint expand(String... values) {
+        if (values.length != literals.length - 1) {
+            throw new IllegalArgumentException("Endpoint template " + template + " requires " + getPlaceholderCount() + " values");
+        }
+        String[] segments = new String[values.length];
+        int length = literalLength;
+        for (int i = 0; i < values.length; i++) {
+            segments[i] = encodeSegment(values[i]);
+            length += segments[i].length();
+        }
+        StringBuilder path = new StringBuilder(length).append(literals[0]);
+        for (int i = 0; i < segments.length; i++) {
+            path.append(segments[i]).append(literals[i + 1]);
+        }
+        return new Endpoint(path.toString(), template);
+    }
+
+    /**
+     * Percent-encodes a value for use as a single path segment (RFC 3986), so values cannot add
+     * segments or a query to the path. Values that need no encoding, such as IDs, are returned as is.
+     *
+     * @param value the raw value
+     * @return the encoded segment
+     */
+    static String encodeSegment(String value) {
+        // Dot segments would be removed by path normalization on the way to the server
+        if (value.equals(".") || value.equals("..")) {
+            return value.length() == 1 ? "%2E" : "%2E%2E";
+        }
+        int length = value.length();
+        int i = 0;
+        while (i < length && isSegmentChar(value.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
+        StringBuilder encoded = new StringBuilder(length + 16).append(value, 0, i);
+        for (byte b : value.substring(i).getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if (c < 0x80 && isSegmentChar(c)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Checks for unreserved characters, sub-delimiters, {@code :} and {@code @}.
+     */
+    private static boolean isSegmentChar(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        switch (c) {
+            case '-': case '.': case '_': case '~':
+            case '!': case '$': case '&': case '\'': case '(': case ')': case '*': case '+': case ',': case ';': case '=':
+            case ':': case '@':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
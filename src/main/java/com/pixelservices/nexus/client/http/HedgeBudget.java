@@ -0,0 +1,42 @@
+package com.pixelservices.nexus.client.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting hedges to a fraction of the request volume.
+ * Every hedgeable request deposits {@code ratio} tokens, every hedge withdraws one.
+ */
+class HedgeBudget {
+    private static final long SCALE = 1_000_000L;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong tokens;
+
+    HedgeBudget(double ratio, int maxBurst) {
+        this.deposit = (long) (ratio * SCALE);
+        this.capacity = Math.max(1, maxBurst) * SCALE;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    void deposit() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing how hedged requests behaved.
+ */
+public class HedgeMetrics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final Histogram latency = new Histogram();
+
+    /**
+     * Gets the number of requests eligible for hedging.
+     *
+     * @return the number of hedgeable requests
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of hedge requests that were actually sent.
+     *
+     * @return the number of hedges fired
+     */
+    public long getFired() {
+        return fired.sum();
+    }
+
+    /**
+     * Gets the number of hedge requests that answered before the original request.
+     *
+     * @return the number of hedges won
+     */
+    public long getWon() {
+        return won.sum();
+    }
+
+    /**
+     * Gets the number of hedges suppressed because the hedge budget was exhausted.
+     *
+     * @return the number of suppressed hedges
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * Gets the latency history, in microseconds, that learned hedge delays are derived from.
+     *
+     * @return the latency histogram
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordFired() {
+        fired.increment();
+    }
+
+    void recordWon() {
+        won.increment();
+    }
+
+    void recordBudgetExhausted() {
+        budgetExhausted.increment();
+    }
+}
@@ -0,0 +1,138 @@
+package com.pixelservices.nexus.client.http;
+
+import java.time.Duration;
+
+/**
+ * Configuration for hedged GET requests.
+ * When a GET has not completed within the hedge delay, a second identical request is sent
+ * and whichever response arrives first is used. The delay is either fixed or learned from
+ * a percentile of the client's own latency history, and a budget caps the extra load.
+ */
+public class HedgingPolicy {
+    private final Duration delay;
+    private final double percentile;
+    private final int minSamples;
+    private final Duration minDelay;
+    private final double budgetRatio;
+    private final int maxBurst;
+
+    private HedgingPolicy(Builder builder) {
+        this.delay = builder.delay;
+        this.percentile = builder.percentile;
+        this.minSamples = builder.minSamples;
+        this.minDelay = builder.minDelay;
+        this.budgetRatio = builder.budgetRatio;
+        this.maxBurst = builder.maxBurst;
+    }
+
+    /**
+     * Gets the fixed hedge delay, which is also used while too few latency samples
+     * have been collected for a learned percentile.
+     *
+     * @return the fixed hedge delay
+     */
+    public Duration getDelay() {
+        return delay;
+    }
+
+    /**
+     * Gets the latency percentile used as the hedge delay.
+     *
+     * @return the percentile between 0.0 and 1.0, or 0 if the fixed delay is always used
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Gets the number of latency samples required before the learned percentile is used.
+     *
+     * @return the minimum number of samples
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * Gets the lower bound for a learned hedge delay.
+     *
+     * @return the minimum hedge delay
+     */
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    /**
+     * Gets the fraction of requests that may be hedged (e.g. 0.05 for at most 5% extra load).
+     *
+     * @return the hedge budget ratio
+     */
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Gets the maximum number of hedges that may be sent in a burst.
+     *
+     * @return the maximum burst size
+     */
+    public int getMaxBurst() {
+        return maxBurst;
+    }
+
+    public static class Builder {
+        private Duration delay = Duration.ofMillis(100);
+        private double percentile;
+        private int minSamples = 100;
+        private Duration minDelay = Duration.ofMillis(5);
+        private double budgetRatio = 0.05;
+        private int maxBurst = 10;
+
+        public Builder delay(Duration delay) {
+            this.delay = delay;
+            return this;
+        }
+
+        public Builder percentile(double percentile) {
+            if (percentile < 0 || percentile >= 1) {
+                throw new IllegalArgumentException("Percentile must be between 0.0 and 1.0");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder minSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public Builder minDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Builder budgetRatio(double budgetRatio) {
+            if (budgetRatio < 0 || budgetRatio > 1) {
+                throw new IllegalArgumentException("Budget ratio must be between 0.0 and 1.0");
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        public Builder maxBurst(int maxBurst) {
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            if (delay == null || delay.isNegative()) {
+                throw new IllegalArgumentException("Hedge delay must not be negative");
+            }
+            return new HedgingPolicy(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -7,7 +7,21 @@ import com.pixelservices.nexus.client.exception.NexusClientException;
  * Provides type-safe methods for different HTTP operations.
  */
 public interface HttpClient {
-    
+
+    /**
+     * Executes a request to the specified endpoint.
+     *
+     * @param method the HTTP method
+     * @param endpoint the API endpoint to call, usually expanded from an {@link EndpointTemplate}
+     * @param body the request body, or null if the request has none
+     * @param responseType the expected response type
+     * @param options the per-call options (deadline, timeouts, cancellation)
+     * @param <T> the response type
+     * @return ApiResponse containing the response data and metadata
+     * @throws NexusClientException if the request fails
+     */
+    <T> ApiResponse<T> execute(HttpMethod method, Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException;
+
     /**
      * Performs a GET request to the specified endpoint.
      *
@@ -17,20 +31,53 @@ public interface HttpClient {
      * @return ApiResponse containing the response data and metadata
      * @throws NexusClientException if the request fails
      */
-    <T> ApiResponse<T> get(String endpoint, Class<T> responseType) throws NexusClientException;
-    
+    default <T> ApiResponse<T> get(String endpoint, Class<T> responseType) throws NexusClientException {
+        return execute(HttpMethod.GET, Endpoint.of(endpoint), null, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Performs a GET request to the specified endpoint.
+     *
+     * @param endpoint the API endpoint to call
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return ApiResponse containing the response data and metadata
+     * @throws NexusClientException if the request fails
+     */
+    default <T> ApiResponse<T> get(String endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return execute(HttpMethod.GET, Endpoint.of(endpoint), null, responseType, options);
+    }
+
+    /**
+     * Performs a POST request to the specified endpoint.
+     *
+     * @param endpoint the API endpoint to call
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param <T> the response type
+     * @return ApiResponse containing the response data and metadata
+     * @throws NexusClientException if the request fails
+     */
+    default <T> ApiResponse<T> post(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
+        return execute(HttpMethod.POST, Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
     /**
      * Performs a POST request to the specified endpoint.
      *
      * @param endpoint the API endpoint to call
      * @param body the request body
      * @param responseType the expected response type
+     * @param options the per-call options
      * @param <T> the response type
      * @return ApiResponse containing the response data and metadata
      * @throws NexusClientException if the request fails
      */
-    <T> ApiResponse<T> post(String endpoint, Object body, Class<T> responseType) throws NexusClientException;
-    
+    default <T> ApiResponse<T> post(String endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return execute(HttpMethod.POST, Endpoint.of(endpoint), body, responseType, options);
+    }
+
     /**
      * Performs a PUT request to the specified endpoint.
      *
@@ -41,16 +88,49 @@ public interface HttpClient {
      * @return ApiResponse containing the response data and metadata
      * @throws NexusClientException if the request fails
      */
-    <T> ApiResponse<T> put(String endpoint, Object body, Class<T> responseType) throws NexusClientException;
-    
+    default <T> ApiResponse<T> put(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
+        return execute(HttpMethod.PUT, Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Performs a PUT request to the specified endpoint.
+     *
+     * @param endpoint the API endpoint to call
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return ApiResponse containing the response data and metadata
+     * @throws NexusClientException if the request fails
+     */
+    default <T> ApiResponse<T> put(String endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return execute(HttpMethod.PUT, Endpoint.of(endpoint), body, responseType, options);
+    }
+
+    /**
+     * Performs a DELETE request to the specified endpoint.
+     *
+     * @param endpoint the API endpoint to call
+     * @param responseType the expected response type
+     * @param <T> the response type
+     * @return ApiResponse containing the response data and metadata
+     * @throws NexusClientException if the request fails
+     */
+    default <T> ApiResponse<T> delete(String endpoint, Class<T> responseType) throws NexusClientException {
+        return execute(HttpMethod.DELETE, Endpoint.of(endpoint), null, responseType, RequestOptions.DEFAULT);
+    }
+
     /**
      * Performs a DELETE request to the specified endpoint.
      *
      * @param endpoint the API endpoint to call
      * @param responseType the expected response type
+     * @param options the per-call options
      * @param <T> the response type
      * @return ApiResponse containing the response data and metadata
      * @throws NexusClientException if the request fails
      */
-    <T> ApiResponse<T> delete(String endpoint, Class<T> responseType) throws NexusClientException;
+    default <T> ApiResponse<T> delete(String endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return execute(HttpMethod.DELETE, Endpoint.of(endpoint), null, responseType, options);
+    }
 }
@@ -0,0 +1,26 @@
+package com.pixelservices.nexus.client.http;
+
+/**
+ * HTTP methods supported by the {@link HttpClient}.
+ */
+public enum HttpMethod {
+    GET(true),
+    POST(false),
+    PUT(true),
+    DELETE(true);
+
+    private final boolean idempotent;
+
+    HttpMethod(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Checks if repeating a request with this method has the same effect as sending it once.
+     *
+     * @return true if the method is idempotent
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
@@ -0,0 +1,156 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.logger.Logger;
+import com.pixelservices.logger.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Picks the endpoint for each exchange using power-of-two-choices over the peak-EWMA cost,
+ * skipping ejected endpoints and throttling those still in slow start. If every remaining
+ * endpoint is ejected, the cheapest of them is used anyway rather than failing the request without trying.
+ */
+class LoadBalancer {
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalancer.class);
+
+    private final LoadBalancingPolicy policy;
+    private final Upstream[] upstreams;
+    private final List<Upstream> upstreamList;
+    private ScheduledFuture<?> probeTask;
+
+    LoadBalancer(List<String> baseUrls, LoadBalancingPolicy policy) {
+        if (baseUrls.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " base URLs are supported");
+        }
+        this.policy = policy;
+        this.upstreams = new Upstream[baseUrls.size()];
+        for (int i = 0; i < upstreams.length; i++) {
+            upstreams[i] = new Upstream(baseUrls.get(i), policy);
+        }
+        this.upstreamList = Collections.unmodifiableList(Arrays.asList(upstreams));
+    }
+
+    /**
+     * Starts probing ejected endpoints. Probes are scheduled on the scheduler and run on the executor.
+     *
+     * @param probe checks if an endpoint is healthy again
+     */
+    void start(ScheduledExecutorService scheduler, Executor executor, Predicate<Upstream> probe) {
+        if (upstreams.length < 2) {
+            return;
+        }
+        long intervalNanos = policy.getProbeInterval().toNanos();
+        probeTask = scheduler.scheduleWithFixedDelay(() -> {
+            for (Upstream upstream : upstreams) {
+                if (upstream.isEjected() && upstream.probing.compareAndSet(false, true)) {
+                    try {
+                        executor.execute(() -> probe(upstream, probe));
+                    } catch (RejectedExecutionException e) {
+                        upstream.probing.set(false);
+                    }
+                }
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void stop() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+        }
+    }
+
+    /**
+     * Selects an endpoint.
+     *
+     * @param excluded bit mask of the endpoint indexes that must not be selected (e.g. already tried)
+     * @return the index of the selected endpoint, or -1 if all endpoints are excluded
+     */
+    int select(long excluded) {
+        int n = upstreams.length;
+        if (n == 1) {
+            return excluded == 0 ? 0 : -1;
+        }
+        long now = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = nextAvailable(random.nextInt(n), excluded);
+        if (first < 0) {
+            return cheapest(excluded, now);
+        }
+        int second = nextAvailable(random.nextInt(n), excluded | (1L << first));
+        if (second < 0) {
+            return first;
+        }
+        int chosen = upstreams[second].cost(now) < upstreams[first].cost(now) ? second : first;
+        int other = chosen == first ? second : first;
+
+        // An endpoint ramping up after an ejection only accepts its current share of the picks
+        double weight = upstreams[chosen].slowStartWeight(now);
+        return weight < 1 && random.nextDouble() >= weight ? other : chosen;
+    }
+
+    Upstream get(int index) {
+        return upstreams[index];
+    }
+
+    int size() {
+        return upstreams.length;
+    }
+
+    List<Upstream> getUpstreams() {
+        return upstreamList;
+    }
+
+    void onComplete(Upstream upstream, long latencyNanos, boolean failed) {
+        if (upstream.onComplete(latencyNanos, failed, policy.getFailureThreshold()) && upstreams.length > 1) {
+            logger.warn("Ejecting " + upstream.getBaseUrl() + " after " + policy.getFailureThreshold() + " consecutive failures");
+        }
+    }
+
+    private void probe(Upstream upstream, Predicate<Upstream> probe) {
+        try {
+            if (probe.test(upstream)) {
+                upstream.reinstate();
+                logger.info("Returning " + upstream.getBaseUrl() + " to service, ramping up over " + policy.getSlowStart().getSeconds() + " seconds");
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Health probe of " + upstream.getBaseUrl() + " failed: " + e.getMessage());
+        } finally {
+            upstream.probing.set(false);
+        }
+    }
+
+    private int nextAvailable(int start, long excluded) {
+        int n = upstreams.length;
+        for (int i = 0; i < n; i++) {
+            int index = (start + i) % n;
+            if ((excluded & (1L << index)) == 0 && !upstreams[index].isEjected()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int cheapest(long excluded, long now) {
+        int best = -1;
+        double bestCost = Double.MAX_VALUE;
+        for (int i = 0; i < upstreams.length; i++) {
+            if ((excluded & (1L << i)) == 0) {
+                double cost = upstreams[i].cost(now);
+                if (cost < bestCost) {
+                    best = i;
+                    bestCost = cost;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pixelservices.nexus.client.http;
+
+import java.time.Duration;
+
+/**
+ * Configuration for spreading requests over several base URLs.
+ * Each request goes to the less loaded of two randomly picked endpoints, where load is the
+ * peak-EWMA latency multiplied by the number of requests in flight. Endpoints are ejected after
+ * repeated failures, probed with {@code /ping} until they answer again, and then given a
+ * growing share of the traffic over the slow-start period.
+ */
+public class LoadBalancingPolicy {
+    /**
+     * The policy used when several base URLs are configured without an explicit policy.
+     */
+    public static final LoadBalancingPolicy DEFAULT = builder().build();
+
+    private final int failureThreshold;
+    private final Duration probeInterval;
+    private final Duration slowStart;
+    private final Duration decayTime;
+
+    private LoadBalancingPolicy(Builder builder) {
+        this.failureThreshold = builder.failureThreshold;
+        this.probeInterval = builder.probeInterval;
+        this.slowStart = builder.slowStart;
+        this.decayTime = builder.decayTime;
+    }
+
+    /**
+     * Gets the number of consecutive failures (transport errors or 5xx responses) after which an endpoint is ejected.
+     *
+     * @return the failure threshold
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Gets the interval between two health probes of an ejected endpoint.
+     *
+     * @return the probe interval
+     */
+    public Duration getProbeInterval() {
+        return probeInterval;
+    }
+
+    /**
+     * Gets the time over which a recovered endpoint's share of the traffic ramps up to a full share.
+     *
+     * @return the slow-start period
+     */
+    public Duration getSlowStart() {
+        return slowStart;
+    }
+
+    /**
+     * Gets the time constant of the latency EWMA, i.e. how quickly old latency samples are forgotten.
+     *
+     * @return the decay time
+     */
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public static class Builder {
+        private int failureThreshold = 5;
+        private Duration probeInterval = Duration.ofSeconds(5);
+        private Duration slowStart = Duration.ofSeconds(30);
+        private Duration decayTime = Duration.ofSeconds(10);
+
+        public Builder failureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        public Builder probeInterval(Duration probeInterval) {
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        public Builder slowStart(Duration slowStart) {
+            this.slowStart = slowStart;
+            return this;
+        }
+
+        public Builder decayTime(Duration decayTime) {
+            this.decayTime = decayTime;
+            return this;
+        }
+
+        public LoadBalancingPolicy build() {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("Failure threshold must be positive");
+            }
+            if (probeInterval == null || probeInterval.isZero() || probeInterval.isNegative()) {
+                throw new IllegalArgumentException("Probe interval must be positive");
+            }
+            if (slowStart == null || slowStart.isNegative()) {
+                throw new IllegalArgumentException("Slow-start period must not be negative");
+            }
+            if (decayTime == null || decayTime.isZero() || decayTime.isNegative()) {
+                throw new IllegalArgumentException("Decay time must be positive");
+            }
+            return new LoadBalancingPolicy(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,58 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.logger.Logger;
+import com.pixelservices.logger.LoggerFactory;
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the outcome of requests. Failures are always logged, successful requests only
+ * for a sampled fraction, so that no log message is built on the common path.
+ */
+public class LoggingInterceptor implements RequestInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingInterceptor.class);
+
+    private final double successSampleRate;
+
+    /**
+     * Creates an interceptor that only logs failures.
+     */
+    public LoggingInterceptor() {
+        this(0);
+    }
+
+    /**
+     * Creates an interceptor that logs failures and a sample of successful requests.
+     *
+     * @param successSampleRate the fraction of successful requests to log, between 0.0 (none) and 1.0 (all)
+     */
+    public LoggingInterceptor(double successSampleRate) {
+        if (successSampleRate < 0 || successSampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0.0 and 1.0");
+        }
+        this.successSampleRate = successSampleRate;
+    }
+
+    @Override
+    public void afterReceive(RequestContext context, ApiResponse<?> response) {
+        if (response.isSuccess()) {
+            if (successSampleRate > 0 && (successSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < successSampleRate)) {
+                logger.debug("Request " + context.getMethod() + " " + context.getEndpoint() + " completed successfully in " + context.getElapsedMillis() + "ms");
+            }
+        } else {
+            logger.warn("Request " + context.getMethod() + " " + context.getEndpoint() + " failed with status " + response.getStatusCode() + " in " + context.getElapsedMillis() + "ms");
+        }
+    }
+
+    @Override
+    public void onError(RequestContext context, NexusClientException exception) {
+        if (exception instanceof NexusClientDeadlineExceededException || exception instanceof NexusClientCancelledException) {
+            logger.warn("Request " + context.getMethod() + " " + context.getEndpoint() + " did not complete: " + exception.getMessage());
+        } else {
+            logger.error("Failed to execute request " + context.getMethod() + " " + context.getEndpoint() + " in " + context.getElapsedMillis() + "ms", exception);
+        }
+    }
+}
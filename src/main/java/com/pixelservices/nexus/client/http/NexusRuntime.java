@@ -0,0 +1,245 @@
+package com.pixelservices.nexus.client.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pixelservices.logger.Logger;
+import com.pixelservices.logger.LoggerFactory;
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.pool.PoolStats;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport resources shared by any number of clients: one connection pool, one
+ * {@link ObjectMapper} per wire format, the priority lanes, the scheduler and worker threads,
+ * the response buffers and the metrics registry. Clients built on a runtime only carry their credentials and settings, so memory,
+ * threads and sockets scale with traffic rather than with the number of clients.
+ * <p>
+ * A runtime passed to a client is not closed with it; close the runtime once all of its clients are closed.
+ */
+public class NexusRuntime implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NexusRuntime.class);
+
+    // Response buffers: buffers grown past 256 KiB are not kept
+    private static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_RESPONSE_BUFFER_SIZE = 256 * 1024;
+
+    private final PooledConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final Map<WireFormat, ObjectMapper> objectMappers = new EnumMap<>(WireFormat.class);
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService executor;
+    private final ResponseBufferPool responseBuffers;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final PriorityLanes priorityLanes;
+    private final ScheduledFuture<?> idleConnectionEviction;
+
+    private NexusRuntime(Builder builder) {
+        this.connectionManager = new PooledConnectionManager(builder.maxConnections, builder.maxConnectionsPerRoute);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build();
+        this.objectMappers.put(WireFormat.JSON, new ObjectMapper());
+        this.objectMappers.put(WireFormat.SMILE, new ObjectMapper(new SmileFactory()));
+        this.objectMappers.put(WireFormat.CBOR, new ObjectMapper(new CBORFactory()));
+        this.priorityLanes = new PriorityLanes(builder.priorityLanePolicy, builder.maxConnections, builder.maxConnectionsPerRoute, metrics);
+        this.responseBuffers = new ResponseBufferPool(Math.min(builder.maxConnections, 64), RESPONSE_BUFFER_SIZE, MAX_POOLED_RESPONSE_BUFFER_SIZE);
+
+        AtomicInteger schedulerThreadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(builder.schedulerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "nexus-scheduler-" + schedulerThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+
+        this.executor = ThreadSupport.newWorkerExecutor("nexus-worker-", builder.virtualThreads);
+
+        long idleMillis = builder.idleConnectionTimeout.toMillis();
+        this.idleConnectionEviction = scheduler.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+        }, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the object mapper used to serialize requests and parse responses as JSON.
+     *
+     * @return the shared object mapper
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMappers.get(WireFormat.JSON);
+    }
+
+    /**
+     * Gets the object mapper for a wire format.
+     *
+     * @param format the wire format
+     * @return the shared object mapper reading and writing that format
+     */
+    public ObjectMapper getObjectMapper(WireFormat format) {
+        return objectMappers.get(format);
+    }
+
+    /**
+     * Gets the scheduler used for deadlines and periodic tasks. Tasks must not block,
+     * blocking work belongs on {@link #getExecutor()}.
+     *
+     * @return the shared scheduler
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Gets the executor used for background requests, such as hedges and catalog refreshes.
+     * It runs each task on a new virtual thread if the runtime was built with virtual threads.
+     *
+     * @return the shared executor
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the metrics registry shared by all clients of this runtime.
+     *
+     * @return the metrics registry
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the priority lanes the exchanges of all clients are scheduled in, with per-lane metrics.
+     *
+     * @return the priority lanes
+     */
+    public PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    /**
+     * Gets the current connection pool usage.
+     *
+     * @return the leased, pending, available and maximum connection counts across all routes
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    ResponseBufferPool getResponseBuffers() {
+        return responseBuffers;
+    }
+
+    /**
+     * Closes the connection pool and stops all threads.
+     */
+    @Override
+    public void close() {
+        idleConnectionEviction.cancel(false);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+        try {
+            httpClient.close();
+            logger.info("Nexus runtime closed.");
+        } catch (IOException e) {
+            logger.error("Failed to close HTTP client", e);
+        }
+    }
+
+    public static class Builder {
+        private int maxConnections = 200;
+        private int maxConnectionsPerRoute = 50;
+        private int schedulerThreads = 1;
+        private Duration idleConnectionTimeout = Duration.ofSeconds(30);
+        private PriorityLanePolicy priorityLanePolicy;
+        private boolean virtualThreads;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of pooled connections across all hosts.
+         */
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections per host.
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets the number of scheduler threads.
+         */
+        public Builder schedulerThreads(int schedulerThreads) {
+            this.schedulerThreads = schedulerThreads;
+            return this;
+        }
+
+        /**
+         * Sets how long a pooled connection may stay idle before it is closed.
+         */
+        public Builder idleConnectionTimeout(Duration idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how the connections are split between interactive, default and bulk requests.
+         * Without a policy, requests are not scheduled by priority and only wait for a pooled connection.
+         */
+        public Builder priorityLanes(PriorityLanePolicy priorityLanePolicy) {
+            this.priorityLanePolicy = priorityLanePolicy;
+            return this;
+        }
+
+        /**
+         * Runs background work (hedges, catalog refreshes) on virtual threads
+         * instead of a pool of platform threads. Requires Java 21 or later.
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public NexusRuntime build() {
+            if (virtualThreads && !ThreadSupport.isVirtualThreadSupported()) {
+                throw new IllegalArgumentException("Virtual threads require Java 21 or later");
+            }
+            if (maxConnections < 1 || maxConnectionsPerRoute < 1 || schedulerThreads < 1) {
+                throw new IllegalArgumentException("Connection limits and scheduler threads must be positive");
+            }
+            if (idleConnectionTimeout == null || idleConnectionTimeout.isZero() || idleConnectionTimeout.isNegative()) {
+                throw new IllegalArgumentException("Idle connection timeout must be positive");
+            }
+            return new NexusRuntime(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
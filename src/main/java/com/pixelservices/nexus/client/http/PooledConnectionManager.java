@@ -0,0 +1,378 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.jfr.PoolExhaustedEvent;
+import com.pixelservices.nexus.client.jfr.RequestEvent;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.HttpClientConnectionOperator;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Connection pool built only on {@code java.util.concurrent} primitives: requests wait for a connection
+ * on fair semaphores and idle connections are kept in lock-free deques. Apache's pool waits for and
+ * hands out connections while holding monitors, which pins a virtual thread to its carrier thread;
+ * waiting on a semaphore unmounts it instead. Connections are still created and connected by
+ * Apache's connection factory and operator.
+ * <p>
+ * The manager also records pool lease and connect times into the current thread's {@link RequestEvent},
+ * and pool exhaustion as {@link PoolExhaustedEvent}s. Leasing and connecting run on the thread
+ * executing the request, so a thread-local is enough to find the event.
+ */
+class PooledConnectionManager implements HttpClientConnectionManager {
+    private static final ThreadLocal<RequestEvent> CURRENT = new ThreadLocal<>();
+
+    // Connections idle for longer are checked for a socket closed by the server before reuse, as in Apache's pool
+    private static final long VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final Semaphore totalPermits;
+    private final Map<HttpRoute, RoutePool> routes = new ConcurrentHashMap<>();
+    private final Map<HttpClientConnection, PoolEntry> leased = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory;
+    private final HttpClientConnectionOperator operator;
+    private volatile boolean shutdown;
+
+    PooledConnectionManager(int maxTotal, int maxPerRoute) {
+        this(maxTotal, maxPerRoute, ManagedHttpClientConnectionFactory.INSTANCE);
+    }
+
+    PooledConnectionManager(int maxTotal, int maxPerRoute, HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.connectionFactory = connectionFactory;
+        this.totalPermits = new Semaphore(maxTotal, true);
+        this.operator = new DefaultHttpClientConnectionOperator(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                .build(), null, null);
+    }
+
+    static void bind(RequestEvent event) {
+        CURRENT.set(event);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        RoutePool pool = routes.computeIfAbsent(route, r -> new RoutePool(maxPerRoute));
+        RequestEvent requestEvent = CURRENT.get();
+        return new ConnectionRequest() {
+            private volatile boolean cancelled;
+            // The thread waiting for a permit, interrupted by cancel()
+            private final AtomicReference<Thread> waiter = new AtomicReference<>();
+            private volatile boolean waiterInterrupted;
+
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                // Only requests that will wait while a recording is running pay for an event
+                PoolExhaustedEvent poolEvent = null;
+                if (PoolExhaustedEvent.isRecording() && pool.idle.isEmpty() && pool.permits.availablePermits() == 0) {
+                    poolEvent = new PoolExhaustedEvent();
+                    poolEvent.begin();
+                    poolEvent.route = route.getTargetHost().toURI();
+                    poolEvent.leased = pool.leased.get();
+                    poolEvent.max = maxPerRoute;
+                    poolEvent.pending = pool.permits.getQueueLength();
+                }
+                long start = System.nanoTime();
+                long deadline = timeout > 0 ? start + timeUnit.toNanos(timeout) : 0;
+                try {
+                    acquire(pool.permits, timeout > 0, deadline);
+                    try {
+                        acquire(totalPermits, timeout > 0, deadline);
+                    } catch (InterruptedException | ExecutionException | ConnectionPoolTimeoutException e) {
+                        pool.permits.release();
+                        throw e;
+                    }
+                    if (shutdown) {
+                        pool.permits.release();
+                        totalPermits.release();
+                        throw new IllegalStateException("Connection pool shut down");
+                    }
+                    PoolEntry entry;
+                    try {
+                        entry = lease(route, pool, state);
+                    } catch (RuntimeException e) {
+                        pool.permits.release();
+                        totalPermits.release();
+                        throw e;
+                    }
+                    pool.leased.incrementAndGet();
+                    leased.put(entry.connection, entry);
+                    return entry.connection;
+                } catch (ConnectionPoolTimeoutException e) {
+                    if (poolEvent != null) {
+                        poolEvent.timedOut = true;
+                    }
+                    throw e;
+                } finally {
+                    if (requestEvent != null) {
+                        requestEvent.poolLeaseTime = System.nanoTime() - start;
+                    }
+                    if (poolEvent != null) {
+                        poolEvent.commit();
+                    }
+                }
+            }
+
+            private void acquire(Semaphore semaphore, boolean timed, long deadline) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                Thread current = Thread.currentThread();
+                waiter.set(current);
+                boolean acquired = false;
+                InterruptedException interrupted = null;
+                try {
+                    if (!cancelled) {
+                        if (timed) {
+                            acquired = semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        } else {
+                            semaphore.acquire();
+                            acquired = true;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = e;
+                }
+                if (!waiter.compareAndSet(current, null)) {
+                    // cancel() has taken the thread to interrupt it; the interrupt must not outlive this wait
+                    while (!waiterInterrupted) {
+                        Thread.onSpinWait();
+                    }
+                    Thread.interrupted();
+                }
+                if (cancelled) {
+                    if (acquired) {
+                        semaphore.release();
+                    }
+                    throw new ExecutionException(new CancellationException("Operation aborted"));
+                }
+                if (interrupted != null) {
+                    throw interrupted;
+                }
+                if (!acquired) {
+                    throw new ConnectionPoolTimeoutException("Timeout waiting for connection from pool");
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                cancelled = true;
+                Thread thread = waiter.getAndSet(null);
+                if (thread != null) {
+                    thread.interrupt();
+                    waiterInterrupted = true;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Takes the most recently used reusable connection of the route, or creates a new unconnected one.
+     * The caller holds permits for the route and the pool.
+     */
+    private PoolEntry lease(HttpRoute route, RoutePool pool, Object state) {
+        long now = System.currentTimeMillis();
+        PoolEntry entry;
+        while ((entry = pool.idle.pollFirst()) != null) {
+            if (now >= entry.expiry || !Objects.equals(entry.state, state)
+                    || now - entry.updated > VALIDATE_AFTER_INACTIVITY_MILLIS && entry.connection.isStale()) {
+                discard(entry);
+            } else {
+                return entry;
+            }
+        }
+        // Make room for the new connection by closing an idle connection of another route
+        if (open.incrementAndGet() > maxTotal) {
+            for (RoutePool other : routes.values()) {
+                PoolEntry idle = other.idle.pollLast();
+                if (idle != null) {
+                    discard(idle);
+                    break;
+                }
+            }
+        }
+        try {
+            return new PoolEntry(route, connectionFactory.create(route, ConnectionConfig.DEFAULT));
+        } catch (RuntimeException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection connection, Object state, long keepalive, TimeUnit timeUnit) {
+        PoolEntry entry = leased.remove(connection);
+        if (entry == null) {
+            return;
+        }
+        RoutePool pool = routes.get(entry.route);
+        try {
+            if (!shutdown && connection.isOpen()) {
+                entry.state = state;
+                entry.updated = System.currentTimeMillis();
+                entry.expiry = keepalive > 0 ? entry.updated + (timeUnit != null ? timeUnit : TimeUnit.MILLISECONDS).toMillis(keepalive) : Long.MAX_VALUE;
+                connection.setSocketTimeout(0);
+                pool.idle.offerFirst(entry);
+                if (shutdown && pool.idle.removeFirstOccurrence(entry)) {
+                    discard(entry);
+                }
+            } else {
+                discard(entry);
+            }
+        } finally {
+            pool.leased.decrementAndGet();
+            pool.permits.release();
+            totalPermits.release();
+        }
+    }
+
+    @Override
+    public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        RequestEvent requestEvent = CURRENT.get();
+        long start = System.nanoTime();
+        try {
+            HttpHost host = route.getProxyHost() != null ? route.getProxyHost() : route.getTargetHost();
+            operator.connect((ManagedHttpClientConnection) connection, host, route.getLocalSocketAddress(), connectTimeout, SocketConfig.DEFAULT, context);
+        } finally {
+            if (requestEvent != null) {
+                requestEvent.connectTime += System.nanoTime() - start;
+            }
+        }
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection connection, HttpRoute route, HttpContext context) throws IOException {
+        operator.upgrade((ManagedHttpClientConnection) connection, route.getTargetHost(), context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection connection, HttpRoute route, HttpContext context) {
+        // Only open connections are reused, so there is no route state to track
+    }
+
+    @Override
+    public void closeIdleConnections(long idletime, TimeUnit timeUnit) {
+        long cutoff = System.currentTimeMillis() - timeUnit.toMillis(Math.max(idletime, 0));
+        closeIdle(entry -> entry.updated <= cutoff);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        long now = System.currentTimeMillis();
+        closeIdle(entry -> now >= entry.expiry);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        closeIdle(entry -> true);
+        for (PoolEntry entry : leased.values()) {
+            try {
+                entry.connection.shutdown();
+            } catch (IOException ignored) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    /**
+     * Gets the pool usage across all routes.
+     *
+     * @return the leased, pending, available and maximum connection counts
+     */
+    PoolStats getTotalStats() {
+        int pending = totalPermits.getQueueLength();
+        int available = 0;
+        for (RoutePool pool : routes.values()) {
+            pending += pool.permits.getQueueLength();
+            available += pool.idle.size();
+        }
+        return new PoolStats(leased.size(), pending, available, maxTotal);
+    }
+
+    /**
+     * Closes the idle connections matching the filter. An entry is only closed if it is
+     * still idle when removed, a connection leased in the meantime is left alone.
+     */
+    private void closeIdle(Predicate<PoolEntry> filter) {
+        for (RoutePool pool : routes.values()) {
+            for (PoolEntry entry : pool.idle) {
+                if (filter.test(entry) && pool.idle.removeFirstOccurrence(entry)) {
+                    discard(entry);
+                }
+            }
+        }
+    }
+
+    private void discard(PoolEntry entry) {
+        open.decrementAndGet();
+        try {
+            entry.connection.close();
+        } catch (IOException ignored) {
+            // The connection is dropped either way
+        }
+    }
+
+    private static class RoutePool {
+        private final Semaphore permits;
+        private final AtomicInteger leased = new AtomicInteger();
+        // Most recently used first, so connections the server is about to time out are the ones left idle
+        private final Deque<PoolEntry> idle = new ConcurrentLinkedDeque<>();
+
+        private RoutePool(int maxPerRoute) {
+            this.permits = new Semaphore(maxPerRoute, true);
+        }
+    }
+
+    /**
+     * A pooled connection. Its fields are only written by the thread that leased it or took it
+     * from the idle deque, which publishes them to the next lessee.
+     */
+    private static class PoolEntry {
+        private final HttpRoute route;
+        private final ManagedHttpClientConnection connection;
+        private Object state;
+        private long updated;
+        private long expiry = Long.MAX_VALUE;
+
+        private PoolEntry(HttpRoute route, ManagedHttpClientConnection connection) {
+            this.route = route;
+            this.connection = connection;
+            this.updated = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.pixelservices.nexus.client.http;
+
+/**
+ * Priority class of a request, selecting the lane it is scheduled in.
+ *
+ * @see PriorityLanePolicy
+ */
+public enum Priority {
+    /** User-facing lookups, where latency matters most. */
+    INTERACTIVE,
+    /** Requests that do not set a priority. */
+    DEFAULT,
+    /** Background scans and campaigns, which only get a capped share of the connections. */
+    BULK
+}
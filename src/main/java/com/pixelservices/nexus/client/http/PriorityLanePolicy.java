@@ -0,0 +1,109 @@
+package com.pixelservices.nexus.client.http;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration for splitting the runtime's connections into priority lanes, see
+ * {@link NexusRuntime.Builder#priorityLanes(PriorityLanePolicy)}.
+ * Each lane may use up to its share of the connections and has its own queue. When a connection
+ * frees up, waiting lanes are served in proportion to their weights, so a lane full of bulk work
+ * can neither hold every connection nor starve interactive calls.
+ * <p>
+ * By default interactive calls may use every connection with weight 8, default calls 90% of them
+ * with weight 4, and bulk calls a quarter with weight 1.
+ */
+public class PriorityLanePolicy {
+    /**
+     * The default split, for runtimes that schedule by priority without tuning the lanes.
+     */
+    public static final PriorityLanePolicy DEFAULT = builder().build();
+
+    private final Map<Priority, Double> shares;
+    private final Map<Priority, Integer> weights;
+    private final int capacity;
+
+    private PriorityLanePolicy(Builder builder) {
+        this.shares = new EnumMap<>(builder.shares);
+        this.weights = new EnumMap<>(builder.weights);
+        this.capacity = builder.capacity;
+    }
+
+    /**
+     * Gets the fraction of the capacity a lane may use.
+     *
+     * @param priority the lane's priority
+     * @return the share, between 0 and 1
+     */
+    public double getShare(Priority priority) {
+        return shares.get(priority);
+    }
+
+    /**
+     * Gets the weight a lane is served with when connections free up while several lanes are waiting.
+     *
+     * @param priority the lane's priority
+     * @return the weight
+     */
+    public int getWeight(Priority priority) {
+        return weights.get(priority);
+    }
+
+    /**
+     * Gets the number of concurrent exchanges shared by the lanes.
+     *
+     * @return the capacity, or 0 to derive it from the runtime's connection limits
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public static class Builder {
+        private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+        private final Map<Priority, Integer> weights = new EnumMap<>(Priority.class);
+        private int capacity;
+
+        private Builder() {
+            lane(Priority.INTERACTIVE, 1.0, 8);
+            lane(Priority.DEFAULT, 0.9, 4);
+            lane(Priority.BULK, 0.25, 1);
+        }
+
+        /**
+         * Sets the share of the capacity a lane may use and its scheduling weight.
+         */
+        public Builder lane(Priority priority, double share, int weight) {
+            shares.put(priority, share);
+            weights.put(priority, weight);
+            return this;
+        }
+
+        /**
+         * Sets the number of concurrent exchanges shared by the lanes. Defaults to the per-route
+         * connection limit times the number of hosts the runtime's clients call, capped at the
+         * total limit, so the lanes neither hold back exchanges the pool could serve nor let a
+         * lane fill a host's connections.
+         */
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public PriorityLanePolicy build() {
+            for (Priority priority : Priority.values()) {
+                double share = shares.get(priority);
+                if (share <= 0 || share > 1 || weights.get(priority) < 1) {
+                    throw new IllegalArgumentException("Lane " + priority + " needs a share in (0, 1] and a positive weight");
+                }
+            }
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Capacity must not be negative");
+            }
+            return new PriorityLanePolicy(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,380 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientOverloadedException;
+import com.pixelservices.nexus.client.metrics.Histogram;
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+import org.apache.http.HttpHost;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules the exchanges of all clients on a runtime in priority lanes, see {@link PriorityLanePolicy}.
+ * Waiting lanes are served by smooth weighted round-robin, each lane in FIFO order.
+ * <p>
+ * A runtime built without a policy does not schedule: exchanges never queue in a lane and take
+ * no lock, and the lanes only count requests and record latency.
+ * <p>
+ * Unless the policy sets a capacity, it is what the pool can serve for the hosts the runtime's
+ * clients call: the per-route limit for each host, up to the total limit. A capacity above that
+ * would let bulk calls fill a host's connections and leave interactive calls waiting in the pool,
+ * where no lane applies.
+ */
+public class PriorityLanes {
+    private final boolean scheduling;
+    private final PriorityLanePolicy policy;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final Set<HttpHost> routes = new HashSet<>();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final Lane[] laneArray;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile int capacity;
+    private int inFlight;
+
+    PriorityLanes(PriorityLanePolicy policy, int maxConnections, int maxConnectionsPerRoute, MetricsRegistry metrics) {
+        this.scheduling = policy != null;
+        this.policy = policy != null ? policy : PriorityLanePolicy.DEFAULT;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new Lane(priority, this.policy.getWeight(priority), metrics));
+        }
+        this.laneArray = lanes.values().toArray(new Lane[0]);
+        // Until a client registers its hosts, assume a single one
+        resize(this.policy.getCapacity() > 0 ? this.policy.getCapacity() : Math.min(maxConnections, maxConnectionsPerRoute));
+    }
+
+    /**
+     * Adds the hosts a client calls, growing the default capacity by the per-route limit for each new host.
+     *
+     * @param hosts the client's upstream hosts
+     */
+    void addRoutes(Collection<HttpHost> hosts) {
+        if (policy.getCapacity() > 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            routes.addAll(hosts);
+            long routeCapacity = (long) maxConnectionsPerRoute * Math.max(1, routes.size());
+            int newCapacity = (int) Math.min(maxConnections, routeCapacity);
+            if (newCapacity != capacity) {
+                resize(newCapacity);
+                dispatchLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void resize(int newCapacity) {
+        capacity = newCapacity;
+        for (Lane lane : laneArray) {
+            lane.maxConcurrency = Math.max(1, (int) Math.round(policy.getShare(lane.priority) * newCapacity));
+        }
+    }
+
+    /**
+     * Checks if exchanges are scheduled in the lanes, which is the case once a policy is configured.
+     *
+     * @return true if the lanes limit and queue exchanges
+     */
+    public boolean isScheduling() {
+        return scheduling;
+    }
+
+    /**
+     * Gets the number of concurrent exchanges shared by the lanes.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets a lane with its configuration and metrics.
+     *
+     * @param priority the lane's priority
+     * @return the lane
+     */
+    public Lane getLane(Priority priority) {
+        return lanes.get(priority);
+    }
+
+    /**
+     * Gets all lanes.
+     *
+     * @return an unmodifiable view of the lanes by priority
+     */
+    public Map<Priority, Lane> getLanes() {
+        return Collections.unmodifiableMap(lanes);
+    }
+
+    /**
+     * Takes a slot in the lane, waiting in its queue if the lane or the capacity is exhausted.
+     *
+     * @param timeoutMillis the maximum time to wait for a slot, 0 or less to wait without limit
+     * @param deadline the request's deadline, may be null
+     * @param cancellationToken wakes the request up if it is cancelled while waiting, may be null
+     * @return the lane, to be passed to {@link #release(Lane, long)}
+     * @throws NexusClientOverloadedException if no slot became free in time
+     * @throws NexusClientCancelledException if the request was cancelled while waiting
+     */
+    Lane acquire(Priority priority, long timeoutMillis, Deadline deadline, CancellationToken cancellationToken) throws NexusClientException {
+        Lane lane = lanes.get(priority);
+        lane.requests.increment();
+        if (!scheduling) {
+            return lane;
+        }
+        lock.lock();
+        try {
+            if (lane.queue.isEmpty() && lane.inFlight < lane.maxConcurrency && inFlight < capacity) {
+                lane.inFlight++;
+                inFlight++;
+                return lane;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            lane.enqueue(waiter);
+            CancellationToken.Registration cancellation = cancellationToken != null ? cancellationToken.register(() -> wake(waiter)) : null;
+            long startNanos = System.nanoTime();
+            long remainingNanos = timeoutMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+            try {
+                while (!waiter.granted) {
+                    if (cancellationToken != null && cancellationToken.isCancelled()) {
+                        lane.remove(waiter);
+                        throw new NexusClientCancelledException("HTTP request cancelled while queued in the " + priority + " lane");
+                    }
+                    if (remainingNanos <= 0) {
+                        lane.remove(waiter);
+                        lane.rejected.increment();
+                        if (deadline != null && deadline.isExpired()) {
+                            throw new NexusClientDeadlineExceededException("HTTP request deadline exceeded while queued in the " + priority + " lane");
+                        }
+                        throw new NexusClientOverloadedException("Timed out after " + timeoutMillis + "ms waiting for a connection in the " + priority + " lane");
+                    }
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    releaseLocked(lane);
+                } else {
+                    lane.remove(waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new NexusClientException("HTTP request interrupted", e);
+            } finally {
+                if (cancellation != null) {
+                    cancellation.close();
+                }
+            }
+            lane.waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            return lane;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot and hands it to the next waiting lane.
+     *
+     * @param latencyNanos the time the exchange took, recorded in the lane's latency histogram
+     */
+    void release(Lane lane, long latencyNanos) {
+        lane.latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (!scheduling) {
+            return;
+        }
+        lock.lock();
+        try {
+            releaseLocked(lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        lock.lock();
+        try {
+            waiter.condition.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked(Lane lane) {
+        lane.inFlight--;
+        inFlight--;
+        dispatchLocked();
+    }
+
+    /**
+     * Hands free slots to waiting lanes.
+     */
+    private void dispatchLocked() {
+        while (inFlight < capacity) {
+            Lane next = nextLane();
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.dequeue();
+            waiter.granted = true;
+            next.inFlight++;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+
+    /**
+     * Picks the next lane to serve among those with waiters and room, by smooth weighted
+     * round-robin: every candidate gains its weight, the one with the most credit is served
+     * and pays the total back. Over time each lane is served in proportion to its weight,
+     * without serving a heavy lane in long bursts.
+     */
+    private Lane nextLane() {
+        Lane best = null;
+        int totalWeight = 0;
+        for (Lane lane : laneArray) {
+            if (!lane.queue.isEmpty() && lane.inFlight < lane.maxConcurrency) {
+                lane.credit += lane.weight;
+                totalWeight += lane.weight;
+                if (best == null || lane.credit > best.credit) {
+                    best = lane;
+                }
+            }
+        }
+        if (best != null) {
+            best.credit -= totalWeight;
+        }
+        return best;
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * A priority lane. Its counts are updated by the scheduler and read without locking.
+     */
+    public static final class Lane {
+        private final Priority priority;
+        private final int weight;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private final LongAdder requests;
+        private final LongAdder rejected;
+        private final Histogram waitTimes;
+        private final Histogram latency;
+        private volatile int maxConcurrency;
+        private volatile int inFlight;
+        private volatile int waiting;
+        private int credit;
+
+        private Lane(Priority priority, int weight, MetricsRegistry metrics) {
+            this.priority = priority;
+            this.weight = weight;
+            String prefix = "lane." + priority.name().toLowerCase(Locale.ROOT) + ".";
+            this.requests = metrics.counter(prefix + "requests");
+            this.rejected = metrics.counter(prefix + "rejected");
+            this.waitTimes = metrics.histogram(prefix + "wait");
+            this.latency = metrics.histogram(prefix + "latency");
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        private void enqueue(Waiter waiter) {
+            queue.addLast(waiter);
+            waiting = queue.size();
+        }
+
+        private Waiter dequeue() {
+            Waiter waiter = queue.pollFirst();
+            waiting = queue.size();
+            return waiter;
+        }
+
+        private void remove(Waiter waiter) {
+            queue.remove(waiter);
+            waiting = queue.size();
+        }
+
+        /**
+         * Gets the number of exchanges the lane may run at the same time.
+         *
+         * @return the lane's connection allocation
+         */
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * Gets the number of requests waiting in the lane's queue.
+         *
+         * @return the queue length
+         */
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * Gets the number of requests that gave up waiting for a slot.
+         *
+         * @return the number of rejected requests
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * Gets the time, in microseconds, queued requests waited for a slot.
+         *
+         * @return the wait time histogram
+         */
+        public Histogram getWaitTimes() {
+            return waitTimes;
+        }
+
+        /**
+         * Gets the exchange latency, in microseconds, excluding the time spent queued.
+         *
+         * @return the latency histogram
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+    }
+}
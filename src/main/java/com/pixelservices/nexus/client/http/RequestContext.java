@@ -0,0 +1,104 @@
+package com.pixelservices.nexus.client.http;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State of a single logical request as it passes through the {@link RequestInterceptor} chain.
+ * Headers added here are applied to every exchange sent for the request (including hedges).
+ * A context is created on the calling thread, but hedged exchanges read its headers on executor
+ * threads: add headers in {@link RequestInterceptor#beforeSend} only, and do not retain the context
+ * after the request.
+ */
+public final class RequestContext {
+    private static final Header[] NO_HEADERS = new Header[0];
+
+    private final HttpMethod method;
+    private final Endpoint endpoint;
+    private final RequestOptions options;
+    private final long startNanos;
+    private Header[] headers = NO_HEADERS;
+    private int headerCount;
+    private Map<String, Object> attributes;
+
+    RequestContext(HttpMethod method, Endpoint endpoint, RequestOptions options) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.options = options;
+        this.startNanos = System.nanoTime();
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public RequestOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the request entered the chain.
+     *
+     * @return the start time in nanoseconds
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets the time elapsed since the request entered the chain.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getElapsedNanos());
+    }
+
+    /**
+     * Adds a header to every exchange sent for this request.
+     *
+     * @param header the header, which should be immutable so it can be shared between requests
+     */
+    public void addHeader(Header header) {
+        if (headerCount == headers.length) {
+            headers = Arrays.copyOf(headers, Math.max(4, headerCount * 2));
+        }
+        headers[headerCount++] = header;
+    }
+
+    public void addHeader(String name, String value) {
+        addHeader(new BasicHeader(name, value));
+    }
+
+    public Object getAttribute(String name) {
+        return attributes != null ? attributes.get(name) : null;
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(name, value);
+    }
+
+    int getHeaderCount() {
+        return headerCount;
+    }
+
+    Header getHeader(int index) {
+        return headers[index];
+    }
+}
@@ -0,0 +1,43 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientException;
+
+/**
+ * Hook around the execution of every request made by the {@link DefaultHttpClient}.
+ * <p>
+ * Interceptors form an ordered chain: {@link #beforeSend} is called in registration order,
+ * {@link #afterReceive} and {@link #onError} in reverse order, and only for interceptors whose
+ * {@code beforeSend} has already run. All hooks are optional.
+ */
+public interface RequestInterceptor {
+
+    /**
+     * Called before the request is sent.
+     *
+     * @param context the request context
+     * @return null to continue the chain, or a response to short-circuit the request with.
+     *         The response data must be of the type requested by the caller.
+     * @throws NexusClientException to abort the request
+     */
+    default ApiResponse<?> beforeSend(RequestContext context) throws NexusClientException {
+        return null;
+    }
+
+    /**
+     * Called after a response has been received (or returned by a short-circuiting interceptor).
+     *
+     * @param context the request context
+     * @param response the response
+     */
+    default void afterReceive(RequestContext context, ApiResponse<?> response) {
+    }
+
+    /**
+     * Called when the request fails.
+     *
+     * @param context the request context
+     * @param exception the failure, which is rethrown to the caller afterwards
+     */
+    default void onError(RequestContext context, NexusClientException exception) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.pixelservices.nexus.client.http;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-call options for requests made through the {@link HttpClient} and the repositories.
+ * <p>
+ * The deadline is absolute: it is fixed when the options are built, so reusing the same
+ * options for several requests (e.g. hedges or the individual calls of a bulk operation)
+ * makes all of them share one overall time budget.
+ */
+public class RequestOptions {
+    /**
+     * Options without a deadline or cancellation, using the client's default timeouts.
+     */
+    public static final RequestOptions DEFAULT = builder().build();
+
+    private static final Map<Priority, RequestOptions> PRIORITY_DEFAULTS = new EnumMap<>(Priority.class);
+
+    static {
+        for (Priority priority : Priority.values()) {
+            PRIORITY_DEFAULTS.put(priority, builder().priority(priority).build());
+        }
+    }
+
+    private final Deadline deadline;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final CancellationToken cancellationToken;
+    private final Map<String, String> headers;
+    private final Priority priority;
+
+    private RequestOptions(Builder builder) {
+        this.deadline = builder.deadline;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.cancellationToken = builder.cancellationToken;
+        this.headers = builder.headers.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(builder.headers));
+        this.priority = builder.priority;
+    }
+
+    /**
+     * Gets the deadline by which the request must complete.
+     *
+     * @return the deadline, or null if there is none
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Gets the connect timeout.
+     *
+     * @return the connect timeout, or null to use the client's default
+     */
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Gets the read (socket) timeout, i.e. the maximum inactivity between two data packets.
+     *
+     * @return the read timeout, or null to use the client's default
+     */
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Gets the cancellation token.
+     *
+     * @return the cancellation token, or null if the request cannot be cancelled
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Gets the additional headers sent with the request, e.g. an idempotency key.
+     *
+     * @return an unmodifiable map of header names to values
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the priority class the request is scheduled in.
+     *
+     * @return the priority, or null to use the repository's or the client's default
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets options that only set a priority.
+     *
+     * @param priority the priority
+     * @return shared options with the given priority and no deadline
+     */
+    public static RequestOptions of(Priority priority) {
+        return PRIORITY_DEFAULTS.get(priority);
+    }
+
+    /**
+     * Creates a builder pre-populated with these options.
+     *
+     * @return a new builder
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.deadline = deadline;
+        builder.connectTimeout = connectTimeout;
+        builder.readTimeout = readTimeout;
+        builder.cancellationToken = cancellationToken;
+        builder.headers.putAll(headers);
+        builder.priority = priority;
+        return builder;
+    }
+
+    public static class Builder {
+        private Deadline deadline;
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private CancellationToken cancellationToken;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private Priority priority;
+
+        /**
+         * Sets the total time allowed for the request, starting now.
+         */
+        public Builder timeout(Duration timeout) {
+            return deadline(Deadline.after(timeout));
+        }
+
+        public Builder deadline(Deadline deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        public Builder cancellationToken(CancellationToken cancellationToken) {
+            this.cancellationToken = cancellationToken;
+            return this;
+        }
+
+        /**
+         * Adds a header to the request, replacing any header previously set under the same name.
+         */
+        public Builder header(String name, String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets the priority class, e.g. {@link Priority#INTERACTIVE} for user-facing lookups.
+         */
+        public Builder priority(Priority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public RequestOptions build() {
+            return new RequestOptions(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
@@ -0,0 +1,111 @@
+package com.pixelservices.nexus.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of the byte buffers response bodies are read into.
+ * <p>
+ * Buffers that had to grow past {@code maxPooledSize} are left to the garbage collector when
+ * released, so a single large response does not stay retained by the pool.
+ */
+final class ResponseBufferPool {
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ArrayBlockingQueue<byte[]> buffers;
+    private final int initialSize;
+    private final int maxPooledSize;
+
+    ResponseBufferPool(int capacity, int initialSize, int maxPooledSize) {
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+        this.initialSize = initialSize;
+        this.maxPooledSize = maxPooledSize;
+    }
+
+    Buffer acquire() {
+        byte[] bytes = buffers.poll();
+        return new Buffer(bytes != null ? bytes : new byte[initialSize]);
+    }
+
+    private void release(byte[] bytes) {
+        if (bytes.length <= maxPooledSize) {
+            buffers.offer(bytes);
+        }
+    }
+
+    /**
+     * A buffer leased from the pool, returned to it on {@link #close()}.
+     */
+    final class Buffer implements AutoCloseable {
+        private byte[] bytes;
+        private int length;
+
+        private Buffer(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Reads the stream to its end, but never more than {@code limit} bytes.
+         *
+         * @param in the stream to read
+         * @param limit the maximum number of bytes to read
+         * @param sizeHint the expected number of bytes, or a negative value if unknown
+         * @return true if the whole stream was read, false if it holds more than {@code limit} bytes
+         * @throws IOException if reading fails
+         */
+        boolean readFrom(InputStream in, int limit, long sizeHint) throws IOException {
+            limit = Math.min(limit, MAX_ARRAY_SIZE - 1);
+            if (sizeHint >= bytes.length && sizeHint <= limit) {
+                // One spare byte, so the end of the stream is detected without growing again
+                bytes = new byte[(int) sizeHint + 1];
+            }
+            while (true) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min((long) bytes.length * 2, limit + 1L));
+                }
+                int read = in.read(bytes, length, Math.min(bytes.length, limit + 1) - length);
+                if (read < 0) {
+                    return true;
+                }
+                length += read;
+                if (length > limit) {
+                    length = limit;
+                    return false;
+                }
+            }
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Checks if the buffer holds nothing but JSON whitespace.
+         */
+        boolean isBlank() {
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String toString(Charset charset) {
+            return new String(bytes, 0, length, charset);
+        }
+
+        @Override
+        public void close() {
+            release(bytes);
+        }
+    }
+}
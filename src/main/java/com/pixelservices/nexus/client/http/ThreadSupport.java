@@ -0,0 +1,38 @@
+package com.pixelservices.nexus.client.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access to virtual threads. This is the Java 17 version, where they are not available;
+ * the multi-release jar carries a Java 21 version under {@code META-INF/versions/21}.
+ */
+final class ThreadSupport {
+    private ThreadSupport() {
+    }
+
+    static boolean isVirtualThreadSupported() {
+        return false;
+    }
+
+    /**
+     * Creates the executor for background work, a pool of daemon platform threads.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @param virtualThreads must be false, runtimes refuse virtual threads unless {@link #isVirtualThreadSupported()}
+     * @return the executor
+     * @throws IllegalArgumentException if virtual threads are requested
+     */
+    static ExecutorService newWorkerExecutor(String namePrefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            throw new IllegalArgumentException("Virtual threads require Java 21 or later");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.metrics.Histogram;
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency and outcome of every request. When created with a {@link MetricsRegistry},
+ * requests are also recorded in the registry's {@code http.*} metrics, aggregated across clients.
+ */
+public class TimingInterceptor implements RequestInterceptor {
+    private final Histogram latency = new Histogram();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // Aggregates shared through the registry (null without a registry)
+    private final Histogram sharedLatency;
+    private final LongAdder sharedSuccesses;
+    private final LongAdder sharedFailures;
+    private final LongAdder sharedErrors;
+
+    public TimingInterceptor() {
+        this(null);
+    }
+
+    public TimingInterceptor(MetricsRegistry registry) {
+        this.sharedLatency = registry != null ? registry.histogram("http.latency") : null;
+        this.sharedSuccesses = registry != null ? registry.counter("http.successes") : null;
+        this.sharedFailures = registry != null ? registry.counter("http.failures") : null;
+        this.sharedErrors = registry != null ? registry.counter("http.errors") : null;
+    }
+
+    @Override
+    public void afterReceive(RequestContext context, ApiResponse<?> response) {
+        recordLatency(context);
+        if (response.isSuccess()) {
+            successes.increment();
+            if (sharedSuccesses != null) {
+                sharedSuccesses.increment();
+            }
+        } else {
+            failures.increment();
+            if (sharedFailures != null) {
+                sharedFailures.increment();
+            }
+        }
+    }
+
+    @Override
+    public void onError(RequestContext context, NexusClientException exception) {
+        recordLatency(context);
+        errors.increment();
+        if (sharedErrors != null) {
+            sharedErrors.increment();
+        }
+    }
+
+    private void recordLatency(RequestContext context) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(context.getElapsedNanos());
+        latency.record(micros);
+        if (sharedLatency != null) {
+            sharedLatency.record(micros);
+        }
+    }
+
+    /**
+     * Gets the request latency in microseconds.
+     *
+     * @return the latency histogram
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the number of requests answered with a 2xx status.
+     *
+     * @return the number of successful requests
+     */
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    /**
+     * Gets the number of requests answered with a non-2xx status.
+     *
+     * @return the number of failed requests
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the number of requests that did not produce a response (transport errors, deadlines, ...).
+     *
+     * @return the number of errored requests
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+}
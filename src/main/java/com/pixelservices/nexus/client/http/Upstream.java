@@ -0,0 +1,246 @@
+package com.pixelservices.nexus.client.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.utils.URIUtils;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A base URL requests can be sent to, together with the load and health state the
+ * load balancer selects on.
+ */
+public class Upstream {
+    // Unknown endpoints are assumed to be fast, so they receive traffic and get measured
+    private static final double MIN_COST_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final double MIN_SLOW_START_WEIGHT = 0.1;
+
+    private final String baseUrl;
+    private final HttpHost host;
+    private final String basePath;
+    private final long decayNanos;
+    private final long slowStartNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder ejections = new LongAdder();
+    final AtomicBoolean probing = new AtomicBoolean();
+
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private double ewmaNanos;
+    private long lastUpdateNanos = System.nanoTime();
+
+    private volatile boolean ejected;
+    private volatile WireFormat wireFormat = WireFormat.JSON;
+    private volatile boolean binaryRejected;
+    private volatile long reinstatedAtNanos;
+
+    Upstream(String baseUrl, LoadBalancingPolicy policy) {
+        this.baseUrl = baseUrl;
+        // Parsed once, so requests only carry their path
+        URI uri = URI.create(baseUrl);
+        this.host = URIUtils.extractHost(uri);
+        this.basePath = uri.getRawPath() != null ? uri.getRawPath() : "";
+        this.decayNanos = policy.getDecayTime().toNanos();
+        this.slowStartNanos = policy.getSlowStart().toNanos();
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Gets the scheme, host and port of the base URL, which requests are sent to.
+     *
+     * @return the target host
+     */
+    HttpHost getHost() {
+        return host;
+    }
+
+    /**
+     * Gets the raw path of the base URL, without a trailing slash.
+     *
+     * @return the base path, empty if the base URL has none
+     */
+    String getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * Gets the number of requests currently sent to this endpoint.
+     *
+     * @return the number of requests in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Gets the peak-EWMA latency, decayed to the current time.
+     *
+     * @return the latency estimate in microseconds
+     */
+    public long getLatencyEstimateMicros() {
+        return TimeUnit.NANOSECONDS.toMicros((long) decayedEwma(System.nanoTime()));
+    }
+
+    /**
+     * Checks if the endpoint is currently ejected because of repeated failures.
+     *
+     * @return true if the endpoint is ejected
+     */
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the number of times this endpoint has been ejected.
+     *
+     * @return the number of ejections
+     */
+    public long getEjections() {
+        return ejections.sum();
+    }
+
+    /**
+     * Gets the format request bodies are sent in. Starts as JSON and switches to the client's
+     * preferred binary format once this endpoint has answered in it.
+     *
+     * @return the negotiated wire format
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Records that the endpoint answered in a binary format, so request bodies can use it too.
+     */
+    void acceptWireFormat(WireFormat wireFormat) {
+        if (!binaryRejected) {
+            this.wireFormat = wireFormat;
+        }
+    }
+
+    /**
+     * Records that the endpoint refused a binary request body. It only gets JSON from then on,
+     * even if it keeps answering in a binary format.
+     */
+    void rejectWireFormat() {
+        binaryRejected = true;
+        this.wireFormat = WireFormat.JSON;
+    }
+
+    /**
+     * Gets the selection cost: the latency estimate weighted by the requests in flight.
+     */
+    double cost(long now) {
+        double latency = Math.max(decayedEwma(now), MIN_COST_NANOS);
+        return latency * (inFlight.get() + 1);
+    }
+
+    void onStart() {
+        inFlight.incrementAndGet();
+        requests.increment();
+    }
+
+    /**
+     * Records a completed exchange.
+     *
+     * @param latencyNanos the time the exchange took
+     * @param failed whether the exchange counts towards ejection
+     * @param failureThreshold the number of consecutive failures that ejects the endpoint
+     * @return true if this exchange caused the endpoint to be ejected
+     */
+    boolean onComplete(long latencyNanos, boolean failed, int failureThreshold) {
+        inFlight.decrementAndGet();
+        recordLatency(latencyNanos);
+        if (!failed) {
+            consecutiveFailures.set(0);
+            return false;
+        }
+        failures.increment();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && !ejected) {
+            ejected = true;
+            ejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records an exchange that was cancelled by the caller and says nothing about the endpoint.
+     */
+    void onCancel() {
+        inFlight.decrementAndGet();
+    }
+
+    void reinstate() {
+        consecutiveFailures.set(0);
+        reinstatedAtNanos = System.nanoTime();
+        ejected = false;
+    }
+
+    private void recordLatency(long latencyNanos) {
+        latencyLock.lock();
+        try {
+            long now = System.nanoTime();
+            if (latencyNanos > ewmaNanos) {
+                // Peak sensitivity: latency spikes are picked up immediately and decay slowly
+                ewmaNanos = latencyNanos;
+            } else {
+                double weight = Math.exp(-(double) (now - lastUpdateNanos) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            lastUpdateNanos = now;
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    private double decayedEwma(long now) {
+        latencyLock.lock();
+        try {
+            return ewmaNanos * Math.exp(-(double) Math.max(0, now - lastUpdateNanos) / decayNanos);
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the share of its traffic the endpoint accepts while ramping up after an ejection.
+     *
+     * @return the weight between 0.1 and 1.0
+     */
+    double slowStartWeight(long now) {
+        long reinstatedAt = reinstatedAtNanos;
+        if (reinstatedAt == 0 || slowStartNanos == 0) {
+            return 1;
+        }
+        double progress = (double) (now - reinstatedAt) / slowStartNanos;
+        if (progress >= 1) {
+            reinstatedAtNanos = 0;
+            return 1;
+        }
+        return Math.max(MIN_SLOW_START_WEIGHT, progress);
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
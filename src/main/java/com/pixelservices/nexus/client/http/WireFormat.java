@@ -0,0 +1,44 @@
+package com.pixelservices.nexus.client.http;
+
+/**
+ * Encodings of request and response bodies. All formats carry the same Jackson data model,
+ * the binary ones are smaller and considerably cheaper to parse than JSON text.
+ */
+public enum WireFormat {
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile"),
+    CBOR("application/cbor");
+
+    private final String mediaType;
+
+    WireFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * Gets the format of a body from its content type.
+     *
+     * @param contentType the value of a {@code Content-Type} header, may be null
+     * @return the matching format, JSON if the content type is missing or unknown
+     */
+    static WireFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            for (WireFormat format : values()) {
+                int length = format.mediaType.length();
+                if (format.isBinary() && contentType.regionMatches(true, 0, format.mediaType, 0, length)
+                        && (contentType.length() == length || contentType.charAt(length) == ';' || contentType.charAt(length) == ' ')) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,36 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A lookup answered from a client-side cache without a request to the Nexus API.
+ * Disabled by default, as it is recorded for every lookup.
+ */
+@Name("com.pixelservices.nexus.CacheHit")
+@Label("Nexus Cache Hit")
+@Category({"Nexus", "Cache"})
+@Description("Lookup answered without a request to the Nexus API")
+@StackTrace(false)
+@Enabled(false)
+public final class CacheHitEvent extends Event {
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    public static void emit(String cache, String key) {
+        CacheHitEvent event = new CacheHitEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.key = key;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * Access to the Flight Recorder settings shipped with the client.
+ */
+public final class NexusFlightRecorder {
+    private static final String SETTINGS = "nexus.jfc";
+
+    private NexusFlightRecorder() {
+    }
+
+    /**
+     * Loads the settings for slow request analysis: Nexus requests over 50 ms, retries, pool
+     * exhaustion and verification attempts, plus JDK socket, lock, GC and CPU sampling events.
+     *
+     * @return the configuration, e.g. for {@code new Recording(configuration)}
+     * @throws IOException if the settings cannot be read
+     * @throws ParseException if the settings are malformed
+     */
+    public static Configuration slowRequestConfiguration() throws IOException, ParseException {
+        InputStream in = NexusFlightRecorder.class.getResourceAsStream(SETTINGS);
+        if (in == null) {
+            throw new IOException("Missing Flight Recorder settings " + SETTINGS);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    /**
+     * Starts a recording with the slow request settings.
+     *
+     * @return the started recording, stop and dump it once the incident is captured
+     * @throws IOException if the settings cannot be read
+     * @throws ParseException if the settings are malformed
+     */
+    public static Recording startSlowRequestRecording() throws IOException, ParseException {
+        Recording recording = new Recording(slowRequestConfiguration());
+        recording.setName("nexus-slow-requests");
+        recording.start();
+        return recording;
+    }
+}
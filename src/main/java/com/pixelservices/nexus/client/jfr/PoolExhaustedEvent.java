@@ -0,0 +1,47 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A request that had to wait for a connection because the pool had none left for its route.
+ * The event duration is the time spent waiting.
+ */
+@Name("com.pixelservices.nexus.PoolExhausted")
+@Label("Nexus Connection Pool Exhausted")
+@Category({"Nexus", "HTTP"})
+@Description("Request waiting for a connection because the pool limit was reached")
+public final class PoolExhaustedEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(PoolExhaustedEvent.class);
+
+    @Label("Route")
+    public String route;
+
+    @Label("Leased")
+    @Description("Connections leased on the route when the request started waiting")
+    public int leased;
+
+    @Label("Max")
+    @Description("Connection limit of the route")
+    public int max;
+
+    @Label("Pending")
+    @Description("Other requests already waiting for a connection on the route")
+    public int pending;
+
+    @Label("Timed Out")
+    public boolean timedOut;
+
+    /**
+     * Checks if pool exhaustion events are recorded, so callers can skip creating them otherwise.
+     *
+     * @return true if a recording has this event enabled
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,92 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * A single HTTP exchange with the Nexus API. Hedged requests and failovers record one event per exchange.
+ * The event duration is the whole exchange, split into pool lease, connect, wait and deserialize time.
+ */
+@Name("com.pixelservices.nexus.Request")
+@Label("Nexus Request")
+@Category({"Nexus", "HTTP"})
+@Description("HTTP exchange with the Nexus API")
+@StackTrace(false)
+@Threshold("20 ms")
+public final class RequestEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(RequestEvent.class);
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    @Description("Endpoint template, e.g. /api/nexus/users/{userId}")
+    public String endpoint;
+
+    @Label("Base URL")
+    public String baseUrl;
+
+    @Label("Priority")
+    public String priority;
+
+    @Label("Status Code")
+    @Description("HTTP status code, 0 if no response was received")
+    public int statusCode;
+
+    @Label("Wire Format")
+    @Description("Format of the response body")
+    public String wireFormat;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Queue Time")
+    @Description("Time spent waiting in the priority lane before the exchange started")
+    @Timespan
+    public long queueTime;
+
+    @Label("Pool Lease Time")
+    @Description("Time spent waiting for a pooled connection")
+    @Timespan
+    public long poolLeaseTime;
+
+    @Label("Connect Time")
+    @Description("Time spent opening a new connection, including the TLS handshake")
+    @Timespan
+    public long connectTime;
+
+    @Label("Wait Time")
+    @Description("Time from sending the request until the response headers arrived")
+    @Timespan
+    public long waitTime;
+
+    @Label("Deserialize Time")
+    @Description("Time spent reading and parsing the response body")
+    @Timespan
+    public long deserializeTime;
+
+    @Label("Error")
+    public String error;
+
+    /**
+     * Checks if request events are recorded, so callers can skip collecting their fields otherwise.
+     *
+     * @return true if a recording has this event enabled
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,59 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A request sent again: a hedge, a failover to another endpoint, a body resent as JSON or an email redelivery.
+ */
+@Name("com.pixelservices.nexus.Retry")
+@Label("Nexus Retry")
+@Category({"Nexus", "HTTP"})
+@Description("Request sent again after a slow, failed or refused attempt")
+@StackTrace(false)
+public final class RetryEvent extends Event {
+    public static final String HEDGE = "hedge";
+    public static final String FAILOVER = "failover";
+    public static final String WIRE_FORMAT_FALLBACK = "wire-format-fallback";
+    public static final String EMAIL_REDELIVERY = "email-redelivery";
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("From")
+    @Description("Base URL of the previous attempt")
+    public String from;
+
+    @Label("To")
+    @Description("Base URL of the new attempt")
+    public String to;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Backoff")
+    @Description("Delay before the new attempt was sent")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoff;
+
+    public static void emit(String reason, String endpoint, String from, String to, int attempt, long backoffMillis) {
+        RetryEvent event = new RetryEvent();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.endpoint = endpoint;
+            event.from = from;
+            event.to = to;
+            event.attempt = attempt;
+            event.backoff = backoffMillis;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pixelservices.nexus.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One attempt to verify the base URL and credentials while a client is built.
+ */
+@Name("com.pixelservices.nexus.ConnectionVerification")
+@Label("Nexus Connection Verification")
+@Category({"Nexus", "Lifecycle"})
+@Description("Attempt to verify the base URL and credentials of a new client")
+@StackTrace(false)
+public final class VerificationEvent extends Event {
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Base URL")
+    public String baseUrl;
+
+    @Label("Status Code")
+    @Description("HTTP status code of the ping, 0 if no response was received")
+    public int statusCode;
+
+    @Label("Verified")
+    public boolean verified;
+
+    @Label("Error")
+    public String error;
+}
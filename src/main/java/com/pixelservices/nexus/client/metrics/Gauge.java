@@ -0,0 +1,45 @@
+package com.pixelservices.nexus.client.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * A value sampled when it is read, summed over every source registered under the same name.
+ * Sources are added by clients on startup and removed when they close, so reads are cheap
+ * and never touch the request path.
+ */
+public class Gauge {
+    private final List<LongSupplier> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a source to the gauge.
+     *
+     * @param source the supplier of the source's current value
+     */
+    public void add(LongSupplier source) {
+        sources.add(source);
+    }
+
+    /**
+     * Removes a source previously added to the gauge.
+     *
+     * @param source the supplier passed to {@link #add(LongSupplier)}
+     */
+    public void remove(LongSupplier source) {
+        sources.remove(source);
+    }
+
+    /**
+     * Gets the current value, the sum over all sources.
+     *
+     * @return the current value, or 0 if the gauge has no sources
+     */
+    public long get() {
+        long value = 0;
+        for (LongSupplier source : sources) {
+            value += source.getAsLong();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pixelservices.nexus.client.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named histograms, counters and gauges shared by every client built on the same runtime.
+ * Metrics are created on first use and live as long as the registry. Clients recording under
+ * the same name add up, e.g. {@code http.latency} covers the calls of all of them.
+ */
+public class MetricsRegistry {
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the histogram registered under the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the histogram
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Gets the counter registered under the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Gets the gauge registered under the given name, creating it if needed.
+     *
+     * @param name the metric name
+     * @return the gauge
+     */
+    public Gauge gauge(String name) {
+        return gauges.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    /**
+     * Gets all registered histograms.
+     *
+     * @return an unmodifiable view of the histograms by name
+     */
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Gets all registered counters.
+     *
+     * @return an unmodifiable view of the counters by name
+     */
+    public Map<String, LongAdder> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Gets all registered gauges.
+     *
+     * @return an unmodifiable view of the gauges by name
+     */
+    public Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+}
@@ -0,0 +1,621 @@
+package com.pixelservices.nexus.client.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixelservices.logger.Logger;
+import com.pixelservices.logger.LoggerFactory;
+import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.http.ApiResponse;
+import com.pixelservices.nexus.client.http.CancellationToken;
+import com.pixelservices.nexus.client.http.Deadline;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.jfr.RetryEvent;
+import com.pixelservices.nexus.client.metrics.Histogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, on-disk outbox for emails.
+ * <p>
+ * {@link #append(String, EMail)} returns as soon as the email is written to an append-only,
+ * segment-rotated log and fsync'd. Concurrent appends are group-committed, so one fsync covers
+ * every email queued while the previous one was in progress. A background drainer delivers the
+ * emails in order with at-least-once semantics: each record carries an idempotency key the API
+ * uses to discard duplicates, the highest delivered sequence is persisted in an ack file, and
+ * segments whose records have all been acknowledged are deleted. Emails that were not delivered
+ * when the process stopped are replayed the next time the outbox is opened.
+ * <p>
+ * The writer and the drainer are long-running tasks. They run on a shared executor, such as
+ * {@link com.pixelservices.nexus.client.http.NexusRuntime#getExecutor()}, or on two threads of the outbox's own.
+ */
+public class EMailOutbox implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EMailOutbox.class);
+    private static final String ACK_FILE = "acked";
+    private static final String ACK_TEMP_FILE = "acked.tmp";
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_COMMIT_BATCH = 1024;
+    private static final int ACK_INTERVAL = 64;
+    private static final long POLL_MILLIS = 100;
+    private static final long MIN_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    /**
+     * Default size after which a new segment is started.
+     */
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * Delivers a single email to the Nexus API.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        /**
+         * Sends an email.
+         *
+         * @param userId the recipient's user ID
+         * @param email the email
+         * @param idempotencyKey the key identifying this email across redeliveries
+         * @return the API response
+         * @throws NexusClientException if the request fails
+         */
+        ApiResponse<?> send(String userId, EMail email, String idempotencyKey) throws NexusClientException;
+    }
+
+    private final Path directory;
+    private final Sender sender;
+    private final long maxSegmentBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private final CountDownLatch closeSignal = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final BlockingQueue<OutboxRecord> deliveries = new LinkedBlockingQueue<>();
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    // Owned by the writer thread
+    private final CRC32 crc = new CRC32();
+    private OutboxSegment activeSegment;
+    private long nextSequence;
+
+    // Owned by the drainer thread
+    private long persistedAckSequence;
+
+    private volatile long lastSequence;
+    private volatile long ackedSequence;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Histogram commitBatchSizes = new Histogram();
+
+    private final CountDownLatch writerStopped = new CountDownLatch(1);
+    private final CountDownLatch drainerStopped = new CountDownLatch(1);
+
+    private EMailOutbox(Path directory, Sender sender, long maxSegmentBytes) {
+        this.directory = directory;
+        this.sender = sender;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Opens the outbox in the given directory, replaying any emails that were not delivered yet.
+     *
+     * @param directory the directory holding the outbox segments, created if it does not exist
+     * @param sender delivers the emails to the Nexus API
+     * @return the opened outbox
+     * @throws NexusClientException if the outbox cannot be opened
+     */
+    public static EMailOutbox open(Path directory, Sender sender) throws NexusClientException {
+        return open(directory, sender, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens the outbox in the given directory, replaying any emails that were not delivered yet.
+     *
+     * @param directory the directory holding the outbox segments, created if it does not exist
+     * @param sender delivers the emails to the Nexus API
+     * @param maxSegmentBytes the size after which a new segment is started
+     * @return the opened outbox
+     * @throws NexusClientException if the outbox cannot be opened
+     */
+    public static EMailOutbox open(Path directory, Sender sender, long maxSegmentBytes) throws NexusClientException {
+        return open(directory, sender, maxSegmentBytes, null);
+    }
+
+    /**
+     * Opens the outbox in the given directory, replaying any emails that were not delivered yet.
+     *
+     * @param directory the directory holding the outbox segments, created if it does not exist
+     * @param sender delivers the emails to the Nexus API
+     * @param maxSegmentBytes the size after which a new segment is started
+     * @param executor runs the writer and the drainer for as long as the outbox is open, or null to start dedicated threads
+     * @return the opened outbox
+     * @throws NexusClientException if the outbox cannot be opened
+     */
+    public static EMailOutbox open(Path directory, Sender sender, long maxSegmentBytes, Executor executor) throws NexusClientException {
+        if (directory == null || sender == null) {
+            throw new IllegalArgumentException("Outbox directory and sender cannot be null");
+        }
+        if (maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        EMailOutbox outbox = new EMailOutbox(directory, sender, maxSegmentBytes);
+        try {
+            outbox.recover();
+        } catch (IOException e) {
+            throw new NexusClientException("Failed to open email outbox at " + directory, e);
+        }
+        outbox.start(executor);
+        return outbox;
+    }
+
+    private void start(Executor executor) {
+        Runnable writer = () -> {
+            try {
+                writeLoop();
+            } finally {
+                writerStopped.countDown();
+            }
+        };
+        Runnable drainer = () -> {
+            try {
+                drainLoop();
+            } finally {
+                drainerStopped.countDown();
+            }
+        };
+        if (executor == null) {
+            startThread(writer, "nexus-email-outbox-writer");
+            startThread(drainer, "nexus-email-outbox-drainer");
+            return;
+        }
+        try {
+            executor.execute(writer);
+        } catch (RejectedExecutionException e) {
+            try {
+                activeSegment.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw new NexusClientException("Failed to start email outbox at " + directory, e);
+        }
+        try {
+            executor.execute(drainer);
+        } catch (RejectedExecutionException e) {
+            // Emails are still written, and delivered once the outbox is opened again
+            drainerStopped.countDown();
+            logger.error("Failed to start email outbox drainer, emails will not be delivered until the outbox is reopened", e);
+        }
+    }
+
+    private static void startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an email for delivery. Returns once the email has been durably written to disk.
+     *
+     * @param userId the recipient's user ID
+     * @param email the email
+     * @throws NexusClientException if the email cannot be written or the outbox is closed
+     */
+    public void append(String userId, EMail email) throws NexusClientException {
+        append(userId, email, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Queues an email for delivery. Returns once the email has been durably written to disk, or fails
+     * once the deadline of the options expires or their cancellation token is cancelled. An email that
+     * was already being written when the call gave up may still be delivered.
+     *
+     * @param userId the recipient's user ID
+     * @param email the email
+     * @param options the per-call options, of which the deadline and the cancellation token apply
+     * @throws NexusClientException if the email cannot be written or the outbox is closed
+     */
+    public void append(String userId, EMail email, RequestOptions options) throws NexusClientException {
+        if (options == null) {
+            options = RequestOptions.DEFAULT;
+        }
+        Deadline deadline = options.getDeadline();
+        CancellationToken cancellationToken = options.getCancellationToken();
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            throw new NexusClientCancelledException("Email outbox append cancelled");
+        }
+        if (deadline != null && deadline.isExpired()) {
+            throw new NexusClientDeadlineExceededException("Email outbox append deadline exceeded before writing");
+        }
+
+        Append append = new Append(userId, email);
+        lifecycleLock.lock();
+        try {
+            if (closed) {
+                throw new NexusClientException("Email outbox is closed");
+            }
+            appends.add(append);
+        } finally {
+            lifecycleLock.unlock();
+        }
+
+        // A cancelled append is skipped by the writer unless it is already being written
+        CancellationToken.Registration cancellation = cancellationToken != null
+                ? cancellationToken.register(() -> append.future.cancel(false))
+                : null;
+        try {
+            if (deadline == null) {
+                append.future.get();
+            } else {
+                try {
+                    append.future.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (append.future.cancel(false)) {
+                        throw new NexusClientDeadlineExceededException("Email outbox append deadline exceeded");
+                    }
+                    // The writer completed the append just as the deadline expired
+                    append.future.get();
+                }
+            }
+        } catch (CancellationException e) {
+            throw new NexusClientCancelledException("Email outbox append cancelled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NexusClientException("Interrupted while writing email to the outbox", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NexusClientException) {
+                throw (NexusClientException) e.getCause();
+            }
+            throw new NexusClientException("Failed to write email to the outbox", e.getCause());
+        } finally {
+            if (cancellation != null) {
+                cancellation.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of emails written to the outbox but not delivered yet.
+     *
+     * @return the number of pending emails
+     */
+    public long getPendingCount() {
+        return lastSequence - ackedSequence;
+    }
+
+    /**
+     * Gets the number of emails delivered since the outbox was opened.
+     *
+     * @return the number of delivered emails
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Gets the number of emails dropped since the outbox was opened because the API rejected them permanently.
+     *
+     * @return the number of rejected emails
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the distribution of the number of emails covered by a single fsync.
+     *
+     * @return the commit batch size histogram
+     */
+    public Histogram getCommitBatchSizes() {
+        return commitBatchSizes;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stops accepting emails and stops the drainer once queued appends are written.
+     * Emails that have not been delivered yet are replayed when the outbox is opened again.
+     */
+    @Override
+    public void close() {
+        lifecycleLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lifecycleLock.unlock();
+        }
+        closeSignal.countDown();
+
+        try {
+            writerStopped.await();
+            drainerStopped.await(MAX_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            activeSegment.close();
+        } catch (IOException e) {
+            logger.error("Failed to close email outbox segment " + activeSegment.getPath(), e);
+        }
+    }
+
+    /**
+     * Loads the ack file, queues all records that were not acknowledged yet and starts a new segment.
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(ACK_TEMP_FILE));
+        Path ackFile = directory.resolve(ACK_FILE);
+        if (Files.exists(ackFile)) {
+            persistedAckSequence = ByteBuffer.wrap(Files.readAllBytes(ackFile)).getLong();
+        }
+        ackedSequence = persistedAckSequence;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                long baseSequence = OutboxSegment.baseSequenceOf(path);
+                if (baseSequence >= 0) {
+                    segments.put(baseSequence, path);
+                }
+            });
+        }
+
+        long maxSequence = persistedAckSequence;
+        for (Path path : new ArrayList<>(segments.values())) {
+            List<byte[]> payloads = OutboxSegment.read(path, MAX_RECORD_BYTES);
+            if (payloads.isEmpty()) {
+                segments.values().remove(path);
+                Files.delete(path);
+                continue;
+            }
+            for (byte[] payload : payloads) {
+                OutboxRecord record = objectMapper.readValue(payload, OutboxRecord.class);
+                maxSequence = Math.max(maxSequence, record.sequence());
+                if (record.sequence() > persistedAckSequence) {
+                    deliveries.add(record);
+                }
+            }
+        }
+        if (!deliveries.isEmpty()) {
+            logger.info("Replaying " + deliveries.size() + " undelivered emails from outbox " + directory);
+        }
+
+        lastSequence = maxSequence;
+        nextSequence = maxSequence + 1;
+        activeSegment = OutboxSegment.create(directory, nextSequence);
+        segments.put(nextSequence, activeSegment.getPath());
+        compact();
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        while (true) {
+            Append first;
+            try {
+                first = appends.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                first = null;
+            }
+            if (first == null) {
+                if (closed && appends.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            appends.drainTo(batch, MAX_COMMIT_BATCH - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a batch of appends and makes them durable with a single fsync. Any failure fails the
+     * whole batch, so the writer keeps running and callers are never left waiting.
+     */
+    private void commit(List<Append> batch) {
+        List<OutboxRecord> records = new ArrayList<>(batch.size());
+        try {
+            for (Append append : batch) {
+                if (append.future.isCancelled()) {
+                    continue;
+                }
+                OutboxRecord record = new OutboxRecord(nextSequence, UUID.randomUUID().toString(), append.userId, append.email);
+                byte[] payload = objectMapper.writeValueAsBytes(record);
+                if (activeSegment.getSize() > 0 && activeSegment.getSize() + OutboxSegment.HEADER_BYTES + payload.length > maxSegmentBytes) {
+                    rotate();
+                }
+                activeSegment.append(payload, crc);
+                nextSequence++;
+                records.add(record);
+            }
+            activeSegment.force();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write " + batch.size() + " emails to outbox " + directory, e);
+            NexusClientException failure = new NexusClientException("Failed to write email to the outbox", e);
+            for (Append append : batch) {
+                append.future.completeExceptionally(failure);
+            }
+            // The segment may end in a torn frame, so later records must go to a fresh one
+            try {
+                rotate();
+            } catch (IOException | RuntimeException rotateFailure) {
+                logger.error("Failed to start a new outbox segment", rotateFailure);
+            }
+            return;
+        }
+
+        commitBatchSizes.record(records.size());
+        lastSequence = nextSequence - 1;
+        deliveries.addAll(records);
+        for (Append append : batch) {
+            append.future.complete(null);
+        }
+    }
+
+    private void rotate() throws IOException {
+        try {
+            activeSegment.force();
+            activeSegment.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox segment " + activeSegment.getPath() + ": " + e.getMessage());
+        }
+        activeSegment = OutboxSegment.create(directory, nextSequence);
+        segments.put(nextSequence, activeSegment.getPath());
+    }
+
+    private void drainLoop() {
+        while (!closed) {
+            OutboxRecord record;
+            try {
+                record = deliveries.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (record == null) {
+                persistAck();
+                continue;
+            }
+            if (!deliver(record)) {
+                break;
+            }
+            ackedSequence = record.sequence();
+            if (ackedSequence - persistedAckSequence >= ACK_INTERVAL || deliveries.isEmpty()) {
+                persistAck();
+            }
+        }
+        persistAck();
+    }
+
+    /**
+     * Delivers a record, retrying with exponential backoff until the API accepts or permanently rejects it.
+     *
+     * @return false if the outbox was closed before the record could be delivered
+     */
+    private boolean deliver(OutboxRecord record) {
+        long retryMillis = MIN_RETRY_MILLIS;
+        int attempt = 1;
+        while (!closed) {
+            try {
+                ApiResponse<?> response = sender.send(record.userId(), record.email(), record.idempotencyKey());
+                if (response.isSuccess()) {
+                    delivered.incrementAndGet();
+                    return true;
+                }
+                if (isPermanentFailure(response.getStatusCode())) {
+                    rejected.incrementAndGet();
+                    logger.error("Dropping email " + record.idempotencyKey() + " for user " + record.userId() + ", rejected with status " + response.getStatusCode() + ": " + response.getMessage());
+                    return true;
+                }
+                logger.warn("Failed to deliver email " + record.idempotencyKey() + " (Status: " + response.getStatusCode() + "), retrying in " + retryMillis + "ms");
+            } catch (RuntimeException e) {
+                logger.warn("Failed to deliver email " + record.idempotencyKey() + ", retrying in " + retryMillis + "ms: " + e.getMessage());
+            }
+
+            try {
+                if (closeSignal.await(retryMillis, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            RetryEvent.emit(RetryEvent.EMAIL_REDELIVERY, null, null, null, ++attempt, retryMillis);
+            retryMillis = Math.min(MAX_RETRY_MILLIS, retryMillis * 2);
+        }
+        return false;
+    }
+
+    /**
+     * Client errors other than authentication failures, timeouts and rate limiting will not succeed on retry.
+     */
+    private static boolean isPermanentFailure(int statusCode) {
+        return statusCode >= 400 && statusCode < 500
+                && statusCode != 401 && statusCode != 403 && statusCode != 408 && statusCode != 429;
+    }
+
+    private void persistAck() {
+        long acked = ackedSequence;
+        if (acked == persistedAckSequence) {
+            return;
+        }
+        try {
+            Path tempFile = directory.resolve(ACK_TEMP_FILE);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(acked).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(tempFile, directory.resolve(ACK_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            persistedAckSequence = acked;
+        } catch (IOException e) {
+            logger.error("Failed to persist email outbox acknowledgement", e);
+            return;
+        }
+        compact();
+    }
+
+    /**
+     * Deletes all segments whose records have been acknowledged. The active segment is never deleted.
+     */
+    private void compact() {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long nextBase = segments.higherKey(segment.getKey());
+            if (nextBase == null || nextBase - 1 > persistedAckSequence) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+            } catch (IOException e) {
+                logger.warn("Failed to delete outbox segment " + segment.getValue() + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static final class Append {
+        private final String userId;
+        private final EMail email;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Append(String userId, EMail email) {
+            this.userId = userId;
+            this.email = email;
+        }
+    }
+}
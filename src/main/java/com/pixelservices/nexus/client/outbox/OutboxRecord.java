@@ -0,0 +1,10 @@
+package com.pixelservices.nexus.client.outbox;
+
+import com.pixelservices.nexus.client.data.EMail;
+
+/**
+ * An email queued in the outbox. The sequence orders records across segments and the
+ * idempotency key lets the API discard duplicates when a record is delivered more than once.
+ */
+record OutboxRecord(long sequence, String idempotencyKey, String userId, EMail email) {
+}
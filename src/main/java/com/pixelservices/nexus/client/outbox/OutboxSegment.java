@@ -0,0 +1,135 @@
+package com.pixelservices.nexus.client.outbox;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segment file of the outbox.
+ * <p>
+ * Every record is framed as {@code [length][crc32][payload]}. Segments are named after the
+ * sequence of their first record, so their order and coverage follow from the file names alone.
+ * A torn or corrupt frame ends the segment: everything before it is valid, and since a new
+ * segment is started whenever the outbox is opened, nothing is ever appended after it.
+ */
+final class OutboxSegment implements AutoCloseable {
+    static final String SUFFIX = ".seg";
+    static final int HEADER_BYTES = 8;
+
+    private final long baseSequence;
+    private final Path path;
+    private final FileChannel channel;
+    private long size;
+
+    private OutboxSegment(long baseSequence, Path path, FileChannel channel) {
+        this.baseSequence = baseSequence;
+        this.path = path;
+        this.channel = channel;
+    }
+
+    static OutboxSegment create(Path directory, long baseSequence) throws IOException {
+        Path path = pathOf(directory, baseSequence);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new OutboxSegment(baseSequence, path, channel);
+    }
+
+    static Path pathOf(Path directory, long baseSequence) {
+        return directory.resolve(String.format("%020d", baseSequence) + SUFFIX);
+    }
+
+    /**
+     * Parses the base sequence from a segment file name.
+     *
+     * @return the base sequence, or -1 if the file is not a segment
+     */
+    static long baseSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the payloads of all valid frames of a segment, stopping at the first torn or corrupt frame.
+     */
+    static List<byte[]> read(Path path, int maxRecordBytes) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > maxRecordBytes) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                payloads.add(payload);
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * Writes a framed record. The record is only durable after {@link #force()}.
+     */
+    void append(byte[] payload, CRC32 crc) throws IOException {
+        crc.reset();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(payload.length).putInt((int) crc.getValue()).flip();
+        ByteBuffer[] frame = {header, ByteBuffer.wrap(payload)};
+        long remaining = HEADER_BYTES + payload.length;
+        while (remaining > 0) {
+            remaining -= channel.write(frame);
+        }
+        size += HEADER_BYTES + payload.length;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    long getBaseSequence() {
+        return baseSequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -4,7 +4,11 @@ import com.pixelservices.logger.Logger;
 import com.pixelservices.logger.LoggerFactory;
 import com.pixelservices.nexus.client.exception.NexusClientException;
 import com.pixelservices.nexus.client.http.ApiResponse;
+import com.pixelservices.nexus.client.http.Endpoint;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.HttpMethod;
+import com.pixelservices.nexus.client.http.Priority;
+import com.pixelservices.nexus.client.http.RequestOptions;
 
 /**
  * Base repository class that provides common functionality for all repositories.
@@ -14,11 +18,53 @@ public abstract class BaseRepository {
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
     
     protected final HttpClient httpClient;
+    private volatile Priority priority;
 
     protected BaseRepository(HttpClient httpClient) {
         this.httpClient = httpClient;
     }
 
+    /**
+     * Sets the priority of the calls made through this repository that do not set one in their options.
+     *
+     * @param priority the priority, or null to use each operation's default
+     */
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Gets the priority of the calls made through this repository that do not set one in their options.
+     *
+     * @return the priority, or null if each operation uses its default
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Applies a priority to options that do not set one, unless the repository has a priority of its own.
+     * Operations use this to mark themselves, e.g. full scans as {@link Priority#BULK}.
+     *
+     * @param options the per-call options
+     * @param defaultPriority the operation's default priority, may be null
+     * @return options carrying the effective priority
+     */
+    protected RequestOptions withDefaultPriority(RequestOptions options, Priority defaultPriority) {
+        if (options.getPriority() != null) {
+            return options;
+        }
+        Priority effective = priority != null ? priority : defaultPriority;
+        if (effective == null) {
+            return options;
+        }
+        return options == RequestOptions.DEFAULT ? RequestOptions.of(effective) : options.toBuilder().priority(effective).build();
+    }
+
+    private RequestOptions prioritized(RequestOptions options) {
+        return withDefaultPriority(options, null);
+    }
+
     /**
      * Executes a GET request and returns the data or throws an exception.
      *
@@ -29,8 +75,40 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> T get(String endpoint, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing GET request to endpoint: " + endpoint);
-        ApiResponse<T> response = httpClient.get(endpoint, responseType);
+        return get(Endpoint.of(endpoint), responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a GET request and returns the data or throws an exception.
+     *
+     * @param endpoint the API endpoint
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the response data
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> T get(Endpoint endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        ApiResponse<T> response = httpClient.execute(HttpMethod.GET, endpoint, null, responseType, prioritized(options));
+        return response.getDataOrThrow();
+    }
+
+    /**
+     * Executes a GET request for an entity that may not exist. A 404 answer is not an error,
+     * so no exception is created for it.
+     *
+     * @param endpoint the API endpoint
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the response data, or null if the API answered 404
+     * @throws NexusClientException if the request fails otherwise
+     */
+    protected <T> T getIfExists(Endpoint endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        ApiResponse<T> response = getResponse(endpoint, responseType, options);
+        if (response.getStatusCode() == 404) {
+            return null;
+        }
         return response.getDataOrThrow();
     }
 
@@ -45,8 +123,22 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> T post(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing POST request to endpoint: " + endpoint);
-        ApiResponse<T> response = httpClient.post(endpoint, body, responseType);
+        return post(Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a POST request and returns the data or throws an exception.
+     *
+     * @param endpoint the API endpoint
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the response data
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> T post(Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        ApiResponse<T> response = httpClient.execute(HttpMethod.POST, endpoint, body, responseType, prioritized(options));
         return response.getDataOrThrow();
     }
 
@@ -61,8 +153,22 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> T put(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing PUT request to endpoint: " + endpoint);
-        ApiResponse<T> response = httpClient.put(endpoint, body, responseType);
+        return put(Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a PUT request and returns the data or throws an exception.
+     *
+     * @param endpoint the API endpoint
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the response data
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> T put(Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        ApiResponse<T> response = httpClient.execute(HttpMethod.PUT, endpoint, body, responseType, prioritized(options));
         return response.getDataOrThrow();
     }
 
@@ -76,8 +182,21 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> T delete(String endpoint, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing DELETE request to endpoint: " + endpoint);
-        ApiResponse<T> response = httpClient.delete(endpoint, responseType);
+        return delete(Endpoint.of(endpoint), responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a DELETE request and returns the data or throws an exception.
+     *
+     * @param endpoint the API endpoint
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the response data
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> T delete(Endpoint endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        ApiResponse<T> response = httpClient.execute(HttpMethod.DELETE, endpoint, null, responseType, prioritized(options));
         return response.getDataOrThrow();
     }
 
@@ -91,8 +210,21 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> ApiResponse<T> getResponse(String endpoint, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing GET request to endpoint: " + endpoint);
-        return httpClient.get(endpoint, responseType);
+        return getResponse(Endpoint.of(endpoint), responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a GET request and returns the full response for custom handling.
+     *
+     * @param endpoint the API endpoint
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the full API response
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> ApiResponse<T> getResponse(Endpoint endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return httpClient.execute(HttpMethod.GET, endpoint, null, responseType, prioritized(options));
     }
 
     /**
@@ -106,8 +238,22 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> ApiResponse<T> postResponse(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing POST request to endpoint: " + endpoint);
-        return httpClient.post(endpoint, body, responseType);
+        return postResponse(Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a POST request and returns the full response for custom handling.
+     *
+     * @param endpoint the API endpoint
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the full API response
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> ApiResponse<T> postResponse(Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return httpClient.execute(HttpMethod.POST, endpoint, body, responseType, prioritized(options));
     }
 
     /**
@@ -121,8 +267,22 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> ApiResponse<T> putResponse(String endpoint, Object body, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing PUT request to endpoint: " + endpoint);
-        return httpClient.put(endpoint, body, responseType);
+        return putResponse(Endpoint.of(endpoint), body, responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a PUT request and returns the full response for custom handling.
+     *
+     * @param endpoint the API endpoint
+     * @param body the request body
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the full API response
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> ApiResponse<T> putResponse(Endpoint endpoint, Object body, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return httpClient.execute(HttpMethod.PUT, endpoint, body, responseType, prioritized(options));
     }
 
     /**
@@ -135,7 +295,20 @@ public abstract class BaseRepository {
      * @throws NexusClientException if the request fails
      */
     protected <T> ApiResponse<T> deleteResponse(String endpoint, Class<T> responseType) throws NexusClientException {
-        logger.debug("Executing DELETE request to endpoint: " + endpoint);
-        return httpClient.delete(endpoint, responseType);
+        return deleteResponse(Endpoint.of(endpoint), responseType, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Executes a DELETE request and returns the full response for custom handling.
+     *
+     * @param endpoint the API endpoint
+     * @param responseType the expected response type
+     * @param options the per-call options
+     * @param <T> the response type
+     * @return the full API response
+     * @throws NexusClientException if the request fails
+     */
+    protected <T> ApiResponse<T> deleteResponse(Endpoint endpoint, Class<T> responseType, RequestOptions options) throws NexusClientException {
+        return httpClient.execute(HttpMethod.DELETE, endpoint, null, responseType, prioritized(options));
     }
 }
@@ -0,0 +1,96 @@
+package com.pixelservices.nexus.client.repository;
+
+import com.pixelservices.nexus.client.jfr.CacheHitEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of IDs the Nexus API answered with 404, so repeated lookups of the same
+ * missing entity (e.g. existence checks) do not go back to the network until the entry expires.
+ */
+public class NotFoundCache {
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+
+    public NotFoundCache(String name, Duration ttl) {
+        this(name, ttl, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache remembering misses for the given time.
+     *
+     * @param name the cache name, reported in cache hit events
+     * @param ttl the time a miss is remembered
+     * @param maxSize the maximum number of remembered misses
+     */
+    public NotFoundCache(String name, Duration ttl, int maxSize) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Not found cache TTL must be positive");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Not found cache size must be positive");
+        }
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Checks whether an ID recently turned out not to exist.
+     *
+     * @param id the entity ID
+     * @return true if the ID is known to be missing
+     */
+    public boolean contains(String id) {
+        Long expiry = expiries.get(id);
+        if (expiry == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiry >= 0) {
+            expiries.remove(id, expiry);
+            return false;
+        }
+        CacheHitEvent.emit(name, id);
+        return true;
+    }
+
+    /**
+     * Remembers that an ID does not exist. When the cache is full, expired entries are purged
+     * and the miss is not remembered if there is still no room.
+     *
+     * @param id the entity ID
+     */
+    public void add(String id) {
+        long now = System.nanoTime();
+        if (expiries.size() >= maxSize) {
+            expiries.values().removeIf(expiry -> now - expiry >= 0);
+            if (expiries.size() >= maxSize) {
+                return;
+            }
+        }
+        expiries.put(id, now + ttlNanos);
+    }
+
+    /**
+     * Forgets a miss, e.g. after the entity was created.
+     *
+     * @param id the entity ID
+     */
+    public void remove(String id) {
+        expiries.remove(id);
+    }
+
+    public void clear() {
+        expiries.clear();
+    }
+
+    public int size() {
+        return expiries.size();
+    }
+}
@@ -0,0 +1,266 @@
+package com.pixelservices.nexus.client.service;
+
+import com.pixelservices.logger.Logger;
+import com.pixelservices.logger.LoggerFactory;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, copy-on-write in-memory snapshot of the vendor's services.
+ * <p>
+ * Lookups are a single volatile read followed by a map lookup and never touch the network.
+ * The snapshot is reloaded in the background ahead of its expiry; if a reload fails, the
+ * previous snapshot keeps being served and the failure is exposed through {@link #isStale()},
+ * {@link #getRefreshFailures()} and {@link #getLastRefreshError()}.
+ */
+public class ServiceCatalog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ServiceCatalog.class);
+    private static final double REFRESH_AHEAD_FACTOR = 0.75;
+
+    private final Supplier<Service[]> loader;
+    private final Duration ttl;
+    private final long refreshIntervalNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor refreshExecutor;
+    private final boolean ownsScheduler;
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private volatile ScheduledFuture<?> nextRefresh;
+    private volatile boolean closed;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private volatile RuntimeException lastRefreshError;
+
+    /**
+     * Creates a catalog. The first load only starts once {@link #start()} is called.
+     *
+     * @param loader loads the full list of services from the Nexus API
+     * @param ttl the time after which a snapshot is considered stale
+     */
+    public ServiceCatalog(Supplier<Service[]> loader, Duration ttl) {
+        this(loader, ttl, createScheduler(), null, true);
+    }
+
+    /**
+     * Creates a catalog on shared threads. The first load only starts once {@link #start()} is called.
+     *
+     * @param loader loads the full list of services from the Nexus API
+     * @param ttl the time after which a snapshot is considered stale
+     * @param scheduler schedules the refreshes, it is not shut down when the catalog is closed
+     * @param refreshExecutor runs the refreshes, so slow loads do not hold up the scheduler
+     */
+    public ServiceCatalog(Supplier<Service[]> loader, Duration ttl, ScheduledExecutorService scheduler, Executor refreshExecutor) {
+        this(loader, ttl, scheduler, refreshExecutor, false);
+    }
+
+    private ServiceCatalog(Supplier<Service[]> loader, Duration ttl, ScheduledExecutorService scheduler, Executor refreshExecutor, boolean ownsScheduler) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("Service catalog TTL must be positive");
+        }
+        this.loader = loader;
+        this.ttl = ttl;
+        this.refreshIntervalNanos = (long) (ttl.toNanos() * REFRESH_AHEAD_FACTOR);
+        this.scheduler = scheduler;
+        this.refreshExecutor = refreshExecutor != null ? refreshExecutor : scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "nexus-service-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Starts loading the catalog in the background. Until the first load completes,
+     * lookups return null and callers are expected to fall back to the remote API.
+     */
+    public void start() {
+        refreshExecutor.execute(this::refreshInBackground);
+    }
+
+    /**
+     * Looks up a service in the current snapshot.
+     *
+     * @param serviceId the service ID
+     * @return the service, or null if it is not part of the snapshot
+     */
+    public Service get(String serviceId) {
+        return snapshot.get().services.get(serviceId);
+    }
+
+    /**
+     * Gets all services in the current snapshot.
+     *
+     * @return an unmodifiable view of the services
+     */
+    public Collection<Service> getAll() {
+        return snapshot.get().services.values();
+    }
+
+    /**
+     * Reloads the catalog synchronously, replacing the current snapshot. Services {@link #add added}
+     * while the load was in flight are kept, as the load may have started before they were created.
+     *
+     * @throws NexusClientException if the services cannot be loaded
+     */
+    public void refresh() throws NexusClientException {
+        Snapshot base = snapshot.get();
+        Service[] services = loader.get();
+        Map<String, Service> loaded = new HashMap<>(services.length * 2);
+        for (Service service : services) {
+            loaded.put(service.getId(), service);
+        }
+        long loadedAtNanos = System.nanoTime();
+        Instant loadedAt = Instant.now();
+        Snapshot current;
+        Snapshot updated;
+        do {
+            current = snapshot.get();
+            Map<String, Service> byId = loaded;
+            if (current != base) {
+                byId = new HashMap<>(loaded);
+                for (Map.Entry<String, Service> entry : current.services.entrySet()) {
+                    if (base.services.get(entry.getKey()) != entry.getValue()) {
+                        byId.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            updated = new Snapshot(Collections.unmodifiableMap(byId), loadedAtNanos, loadedAt);
+        } while (!snapshot.compareAndSet(current, updated));
+        lastRefreshError = null;
+    }
+
+    /**
+     * Adds a service fetched from the remote API to the snapshot, copying the snapshot on write.
+     * Lookups for services created after the last refresh then no longer hit the network.
+     *
+     * @param service the service to add
+     */
+    public void add(Service service) {
+        Snapshot current;
+        Snapshot updated;
+        do {
+            current = snapshot.get();
+            Map<String, Service> byId = new HashMap<>(current.services);
+            byId.put(service.getId(), service);
+            updated = new Snapshot(Collections.unmodifiableMap(byId), current.loadedAtNanos, current.loadedAt);
+        } while (!snapshot.compareAndSet(current, updated));
+    }
+
+    /**
+     * Checks if the catalog has never been loaded or its snapshot is older than the TTL.
+     *
+     * @return true if the catalog is stale
+     */
+    public boolean isStale() {
+        Snapshot current = snapshot.get();
+        return current.loadedAt == null || System.nanoTime() - current.loadedAtNanos > ttl.toNanos();
+    }
+
+    /**
+     * Gets the age of the current snapshot.
+     *
+     * @return the snapshot age, or null if the catalog has never been loaded
+     */
+    public Duration getAge() {
+        Snapshot current = snapshot.get();
+        return current.loadedAt == null ? null : Duration.ofNanos(System.nanoTime() - current.loadedAtNanos);
+    }
+
+    /**
+     * Gets the time the current snapshot was loaded.
+     *
+     * @return the load time, or null if the catalog has never been loaded
+     */
+    public Instant getLastRefreshTime() {
+        return snapshot.get().loadedAt;
+    }
+
+    /**
+     * Gets the number of failed background refreshes since the catalog was created.
+     *
+     * @return the number of failed refreshes
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * Gets the error of the last refresh, if it failed.
+     *
+     * @return the last refresh error, or null if the last refresh succeeded
+     */
+    public RuntimeException getLastRefreshError() {
+        return lastRefreshError;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ScheduledFuture<?> pending = nextRefresh;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void refreshInBackground() {
+        long nextRefreshNanos = refreshIntervalNanos;
+        try {
+            refresh();
+            logger.debug("Service catalog refreshed with " + snapshot.get().services.size() + " services");
+        } catch (RuntimeException e) {
+            lastRefreshError = e;
+            refreshFailures.incrementAndGet();
+            // Retry sooner than a regular refresh, the snapshot may already be close to expiry
+            nextRefreshNanos = Math.max(TimeUnit.SECONDS.toNanos(1), refreshIntervalNanos / 4);
+            logger.warn("Failed to refresh service catalog, retrying in " + TimeUnit.NANOSECONDS.toMillis(nextRefreshNanos) + "ms: " + e.getMessage());
+        }
+        if (!closed && !scheduler.isShutdown()) {
+            try {
+                nextRefresh = scheduler.schedule(() -> refreshExecutor.execute(this::refreshInBackground), nextRefreshNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // The shared scheduler was shut down concurrently
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), 0, null);
+
+        private final Map<String, Service> services;
+        private final long loadedAtNanos;
+        private final Instant loadedAt;
+
+        private Snapshot(Map<String, Service> services, long loadedAtNanos, Instant loadedAt) {
+            this.services = services;
+            this.loadedAtNanos = loadedAtNanos;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,14 +1,90 @@
 package com.pixelservices.nexus.client.service;
 
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.RequestOptions;
 import com.pixelservices.nexus.client.repository.BaseRepository;
+import com.pixelservices.nexus.client.repository.NotFoundCache;
+
+import java.util.Optional;
 
 public abstract class ServiceRepository extends BaseRepository {
     protected ServiceRepository(HttpClient httpClient) {
         super(httpClient);
     }
 
-    public abstract Service[] getServices() throws NexusClientException;
-    public abstract Service getService(String serviceId) throws NexusClientException;
+    public Service[] getServices() throws NexusClientException {
+        return getServices(RequestOptions.DEFAULT);
+    }
+
+    public Service getService(String serviceId) throws NexusClientException {
+        return getService(serviceId, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Looks up a service that may not exist, without treating a missing service as an error.
+     *
+     * @param serviceId the service ID
+     * @return the service, or an empty optional if there is no service with this ID
+     * @throws NexusClientException if the request fails
+     */
+    public Optional<Service> findService(String serviceId) throws NexusClientException {
+        return findService(serviceId, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets all services.
+     *
+     * @param options the per-call options
+     * @return all services
+     * @throws NexusClientException if the request fails
+     */
+    public abstract Service[] getServices(RequestOptions options) throws NexusClientException;
+
+    /**
+     * Gets a service.
+     *
+     * @param serviceId the service ID
+     * @param options the per-call options
+     * @return the service
+     * @throws NexusClientException if the request fails
+     */
+    public abstract Service getService(String serviceId, RequestOptions options) throws NexusClientException;
+
+    /**
+     * Looks up a service that may not exist. The default maps the not found exception of
+     * {@link #getService(String, RequestOptions)} to an empty optional; implementations should
+     * check the response status instead, so no exception is created for a missing service.
+     *
+     * @param serviceId the service ID
+     * @param options the per-call options
+     * @return the service, or an empty optional if there is no service with this ID
+     * @throws NexusClientException if the request fails
+     */
+    public Optional<Service> findService(String serviceId, RequestOptions options) throws NexusClientException {
+        try {
+            return Optional.of(getService(serviceId, options));
+        } catch (NexusClientNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Gets the in-memory service catalog used to serve {@link #getService(String)} lookups.
+     *
+     * @return the service catalog, or null if the catalog is disabled
+     */
+    public ServiceCatalog getCatalog() {
+        return null;
+    }
+
+    /**
+     * Gets the cache of service IDs recently found not to exist.
+     *
+     * @return the not found cache, or null if the cache is disabled
+     */
+    public NotFoundCache getNotFoundCache() {
+        return null;
+    }
 }
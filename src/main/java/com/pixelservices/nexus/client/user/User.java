@@ -2,6 +2,7 @@ package com.pixelservices.nexus.client.user;
 
 import com.pixelservices.nexus.client.data.EMail;
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.http.RequestOptions;
 import lombok.experimental.SuperBuilder;
 
 @SuperBuilder
@@ -20,9 +21,20 @@ public class User extends UserData {
      * @throws NexusClientException if the email sending fails
      */
     public void sendEmail(EMail email) throws NexusClientException {
+        sendEmail(email, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Sends an email to this user.
+     *
+     * @param email the email to send
+     * @param options the per-call options
+     * @throws NexusClientException if the email sending fails
+     */
+    public void sendEmail(EMail email, RequestOptions options) throws NexusClientException {
         if (email == null) {
             throw new IllegalArgumentException("Email cannot be null");
         }
-        userRepository.sendEmail(getId(), email);
+        userRepository.sendEmail(getId(), email, options);
     }
 }
@@ -0,0 +1,355 @@
+package com.pixelservices.nexus.client.user;
+
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.metrics.Histogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects independent {@link UserRepository#getUser(String)} calls made within a short window
+ * and dispatches them together (DataLoader-style).
+ * <p>
+ * A batch is dispatched once the window has elapsed since its first request, or as soon as it
+ * reaches the maximum batch size. Requests for the same ID within a batch share one future.
+ * As the Nexus API has no multi-ID user endpoint, a batch is dispatched as a parallel burst of
+ * single lookups, bounded by the configured parallelism.
+ * <p>
+ * The flush timer runs on a scheduler separate from the lookups, so blocked lookups never delay
+ * the dispatch of the next batch. Both can be shared with a {@link NexusRuntime}, see
+ * {@link Builder#runtime(NexusRuntime)}; otherwise the loader starts threads of its own.
+ */
+public class UserBatchLoader implements AutoCloseable {
+    private final UserRepository userRepository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final RequestOptions options;
+    private final int maxParallelism;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final Executor executor;
+    private final boolean ownsExecutor;
+
+    // Dispatched lookups, run by at most maxParallelism workers on the executor
+    private final ConcurrentLinkedQueue<Pending> lookups = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger workers = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<String, Pending> batch = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTimer;
+    private boolean closed;
+
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram waitTimes = new Histogram();
+
+    private UserBatchLoader(Builder builder) {
+        this.userRepository = builder.userRepository;
+        this.windowNanos = builder.window.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+        this.options = builder.options;
+        this.maxParallelism = builder.maxParallelism;
+        this.ownsScheduler = builder.scheduler == null;
+        this.scheduler = ownsScheduler ? createScheduler() : builder.scheduler;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? createExecutor(maxParallelism) : builder.executor;
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "nexus-user-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "nexus-user-loader-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Requests a user. The lookup is deferred until the current batch is dispatched.
+     *
+     * @param userId the user ID
+     * @return a future completed with the user, or exceptionally if the lookup fails
+     * @throws NexusClientException if the loader is closed
+     */
+    public CompletableFuture<User> load(String userId) throws NexusClientException {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+
+        Map<String, Pending> full = null;
+        CompletableFuture<User> future;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new NexusClientException("User batch loader is closed");
+            }
+            Pending pending = batch.get(userId);
+            if (pending != null) {
+                return pending.future;
+            }
+            pending = new Pending(userId);
+            batch.put(userId, pending);
+            future = pending.future;
+
+            if (batch.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (batch.size() == 1) {
+                try {
+                    flushTimer = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // The shared scheduler was shut down, dispatch right away rather than never
+                    full = takeBatch();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Dispatches the current batch immediately.
+     */
+    public void flush() {
+        Map<String, Pending> current;
+        lock.lock();
+        try {
+            if (batch.isEmpty()) {
+                return;
+            }
+            current = takeBatch();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(current);
+    }
+
+    /**
+     * Gets the distribution of dispatched batch sizes.
+     *
+     * @return the batch size histogram
+     */
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Gets the distribution of the time, in microseconds, requests waited before their batch was dispatched.
+     *
+     * @return the wait time histogram
+     */
+    public Histogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Dispatches any pending requests and stops the loader once they have completed.
+     * Further calls to {@link #load(String)} are rejected.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Map<String, Pending> takeBatch() {
+        Map<String, Pending> current = batch;
+        batch = new LinkedHashMap<>();
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        return current;
+    }
+
+    private void dispatch(Map<String, Pending> current) {
+        long now = System.nanoTime();
+        batchSizes.record(current.size());
+        for (Pending pending : current.values()) {
+            waitTimes.record(TimeUnit.NANOSECONDS.toMicros(now - pending.enqueuedNanos));
+            lookups.add(pending);
+        }
+        startWorkers();
+    }
+
+    /**
+     * Starts workers for the queued lookups, up to the maximum parallelism.
+     */
+    private void startWorkers() {
+        while (!lookups.isEmpty()) {
+            int running = workers.get();
+            if (running >= maxParallelism) {
+                return;
+            }
+            if (!workers.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            try {
+                executor.execute(this::runLookups);
+            } catch (RejectedExecutionException e) {
+                // Lookups are only lost if no other worker is left to run them
+                if (workers.decrementAndGet() == 0) {
+                    failQueued(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void runLookups() {
+        Pending pending;
+        while ((pending = lookups.poll()) != null) {
+            try {
+                pending.future.complete(userRepository.getUser(pending.userId, options));
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+        workers.decrementAndGet();
+        // Lookups queued after the last poll would otherwise wait for the next batch
+        startWorkers();
+    }
+
+    private void failQueued(RejectedExecutionException e) {
+        Pending pending;
+        while ((pending = lookups.poll()) != null) {
+            pending.future.completeExceptionally(new NexusClientException("Could not dispatch lookup of user " + pending.userId, e));
+        }
+    }
+
+    private static final class Pending {
+        private final String userId;
+        private final CompletableFuture<User> future = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Pending(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    public static class Builder {
+        private final UserRepository userRepository;
+        private Duration window = Duration.ofMillis(5);
+        private int maxBatchSize = 100;
+        private int maxParallelism = 8;
+        private RequestOptions options = RequestOptions.DEFAULT;
+        private ScheduledExecutorService scheduler;
+        private Executor executor;
+
+        private Builder(UserRepository userRepository) {
+            this.userRepository = userRepository;
+        }
+
+        /**
+         * Sets how long requests are collected before a batch is dispatched.
+         */
+        public Builder window(Duration window) {
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the number of distinct IDs that causes a batch to be dispatched immediately.
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of lookups in flight at the same time.
+         */
+        public Builder maxParallelism(int maxParallelism) {
+            this.maxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the options used for the dispatched requests.
+         */
+        public Builder options(RequestOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler for the flush timer, e.g. {@link com.pixelservices.nexus.client.http.NexusRuntime#getScheduler()}.
+         * It is not shut down when the loader is closed. By default, the loader starts its own timer thread.
+         */
+        public Builder scheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Sets the executor the lookups run on, at most {@link #maxParallelism(int)} at a time.
+         * It is not shut down when the loader is closed. By default, the loader starts its own threads.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Runs the flush timer on the runtime's scheduler and the lookups on its executor.
+         */
+        public Builder runtime(NexusRuntime runtime) {
+            this.scheduler = runtime.getScheduler();
+            this.executor = runtime.getExecutor();
+            return this;
+        }
+
+        public UserBatchLoader build() {
+            if (window == null || window.isNegative()) {
+                throw new IllegalArgumentException("Batch window must not be negative");
+            }
+            if (maxBatchSize < 1 || maxParallelism < 1) {
+                throw new IllegalArgumentException("Batch size and parallelism must be positive");
+            }
+            return new UserBatchLoader(this);
+        }
+    }
+
+    public static Builder builder(UserRepository userRepository) {
+        return new Builder(userRepository);
+    }
+}
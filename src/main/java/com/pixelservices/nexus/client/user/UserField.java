@@ -0,0 +1,28 @@
+package com.pixelservices.nexus.client.user;
+
+/**
+ * A user field that can be requested in a {@link UserQuery} projection.
+ */
+public enum UserField {
+    ID("id"),
+    USERNAME("username"),
+    EMAIL("email"),
+    FIRST_NAME("firstName"),
+    LAST_NAME("lastName"),
+    AVATAR("avatar");
+
+    private final String name;
+
+    UserField(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the field's name in the API's JSON representation.
+     *
+     * @return the JSON property name
+     */
+    public String getName() {
+        return name;
+    }
+}
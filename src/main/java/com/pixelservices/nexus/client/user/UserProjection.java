@@ -0,0 +1,11 @@
+package com.pixelservices.nexus.client.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A user reduced to the fields requested by a {@link UserQuery}. Fields that were not
+ * requested are null, so they are neither transferred nor allocated.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserProjection(String id, String username, String email, String firstName, String lastName, String avatar) {
+}
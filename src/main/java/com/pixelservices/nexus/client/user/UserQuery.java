@@ -0,0 +1,182 @@
+package com.pixelservices.nexus.client.user;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Options for user listings: the fields to return and the criteria the server filters users by.
+ * The query is sent as URL parameters, e.g. {@code ?fields=id,email&emailDomain=example.com}.
+ */
+public final class UserQuery {
+    /**
+     * A query for all fields of all users.
+     */
+    public static final UserQuery ALL = builder().build();
+
+    private final Set<UserField> fields;
+    private final String emailDomain;
+    private final Set<String> ids;
+    private final String queryString;
+
+    private UserQuery(Builder builder) {
+        this.fields = builder.fields.isEmpty()
+                ? Collections.unmodifiableSet(EnumSet.allOf(UserField.class))
+                : Collections.unmodifiableSet(EnumSet.copyOf(builder.fields));
+        this.emailDomain = builder.emailDomain;
+        this.ids = Collections.unmodifiableSet(new LinkedHashSet<>(builder.ids));
+        this.queryString = buildQueryString(builder.fields);
+    }
+
+    /**
+     * Gets the fields returned for each user.
+     *
+     * @return the requested fields, all fields if none were selected
+     */
+    public Set<UserField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Gets the email domain users are filtered by.
+     *
+     * @return the email domain, or null if users are not filtered by domain
+     */
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
+    /**
+     * Gets the IDs users are filtered by.
+     *
+     * @return the IDs, empty if users are not filtered by ID
+     */
+    public Set<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * Gets the URL-encoded query string, without the leading {@code ?}.
+     *
+     * @return the query string, empty for {@link #ALL}
+     */
+    public String toQueryString() {
+        return queryString;
+    }
+
+    /**
+     * Checks a returned user against the filter criteria. Servers that do not support filtering
+     * return all users, so the results are checked again on the client. Criteria on fields that
+     * were not returned are not checked.
+     *
+     * @param id the user's ID, may be null
+     * @param email the user's email address, may be null
+     * @return true if the user matches the query
+     */
+    public boolean matches(String id, String email) {
+        if (id != null && !ids.isEmpty() && !ids.contains(id)) {
+            return false;
+        }
+        if (email != null && emailDomain != null) {
+            int at = email.lastIndexOf('@');
+            return at >= 0 && email.substring(at + 1).equalsIgnoreCase(emailDomain);
+        }
+        return true;
+    }
+
+    private String buildQueryString(Set<UserField> selected) {
+        StringBuilder query = new StringBuilder();
+        if (!selected.isEmpty()) {
+            StringBuilder names = new StringBuilder();
+            for (UserField field : EnumSet.copyOf(selected)) {
+                if (names.length() > 0) {
+                    names.append(',');
+                }
+                names.append(field.getName());
+            }
+            appendParameter(query, "fields", names.toString());
+        }
+        if (emailDomain != null) {
+            appendParameter(query, "emailDomain", emailDomain);
+        }
+        if (!ids.isEmpty()) {
+            appendParameter(query, "ids", String.join(",", ids));
+        }
+        return query.toString();
+    }
+
+    private static void appendParameter(StringBuilder query, String name, String value) {
+        if (query.length() > 0) {
+            query.append('&');
+        }
+        query.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return queryString;
+    }
+
+    public static class Builder {
+        private final Set<UserField> fields = new LinkedHashSet<>();
+        private String emailDomain;
+        private final Set<String> ids = new LinkedHashSet<>();
+
+        /**
+         * Adds fields to return, e.g. {@link UserField#ID} and {@link UserField#EMAIL} for a mailing job.
+         * All fields are returned if none are selected.
+         */
+        public Builder fields(UserField... fields) {
+            Collections.addAll(this.fields, fields);
+            return this;
+        }
+
+        /**
+         * Only returns users whose email address is in the given domain, e.g. {@code example.com}.
+         */
+        public Builder emailDomain(String emailDomain) {
+            this.emailDomain = emailDomain;
+            return this;
+        }
+
+        /**
+         * Only returns the users with the given IDs.
+         */
+        public Builder ids(Collection<String> ids) {
+            this.ids.addAll(ids);
+            return this;
+        }
+
+        public Builder ids(String... ids) {
+            return ids(Arrays.asList(ids));
+        }
+
+        public UserQuery build() {
+            if (emailDomain != null) {
+                emailDomain = emailDomain.trim().toLowerCase(Locale.ROOT);
+                if (emailDomain.startsWith("@")) {
+                    emailDomain = emailDomain.substring(1);
+                }
+                if (emailDomain.isEmpty()) {
+                    throw new IllegalArgumentException("Email domain cannot be empty");
+                }
+            }
+            for (String id : ids) {
+                if (id == null || id.trim().isEmpty()) {
+                    throw new IllegalArgumentException("User ID cannot be null or empty");
+                }
+            }
+            return new UserQuery(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+}
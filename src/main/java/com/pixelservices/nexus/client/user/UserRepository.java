@@ -1,9 +1,22 @@
 package com.pixelservices.nexus.client.user;
 
+import com.pixelservices.nexus.client.data.CompiledEMailTemplate;
 import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.data.EMailRecipient;
+import com.pixelservices.nexus.client.data.EMailTemplate;
 import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.exception.NexusClientPartialSendException;
 import com.pixelservices.nexus.client.http.HttpClient;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.outbox.EMailOutbox;
 import com.pixelservices.nexus.client.repository.BaseRepository;
+import com.pixelservices.nexus.client.repository.NotFoundCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 public abstract class UserRepository extends BaseRepository {
 
@@ -11,11 +24,312 @@ public abstract class UserRepository extends BaseRepository {
         super(httpClient);
     }
 
-    public abstract User[] getUsers() throws NexusClientException;
-    public abstract User getUser(String userId) throws NexusClientException;
-    public abstract boolean sendEmail(String userId, EMail email) throws NexusClientException;
+    public User[] getUsers() throws NexusClientException {
+        return getUsers(RequestOptions.DEFAULT);
+    }
+
+    public User getUser(String userId) throws NexusClientException {
+        return getUser(userId, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Looks up a user that may not exist. Unlike {@link #getUser(String)}, a missing user is
+     * not an error, so no exception is created for it.
+     *
+     * @param userId the user ID
+     * @return the user, or an empty optional if there is no user with this ID
+     * @throws NexusClientException if the request fails
+     */
+    public Optional<User> findUser(String userId) throws NexusClientException {
+        return findUser(userId, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets all users in a compact, columnar form, suitable for very large user lists.
+     *
+     * @return a table holding all users
+     * @throws NexusClientException if the request fails
+     */
+    public UserTable getUserTable() throws NexusClientException {
+        return getUserTable(RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets all users in a compact, columnar form. The default implementation builds the table
+     * from {@link #getUsers(RequestOptions)}; implementations should read the response straight
+     * into the table instead.
+     *
+     * @param options the per-call options
+     * @return a table holding all users
+     * @throws NexusClientException if the request fails
+     */
+    public UserTable getUserTable(RequestOptions options) throws NexusClientException {
+        User[] users = getUsers(options);
+        UserTable.Builder builder = UserTable.builder(this, users.length);
+        for (User user : users) {
+            builder.add(user);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sends an email to a user. If the email outbox is enabled, the email is queued durably
+     * and delivered in the background, and this method returns once it has been written to disk.
+     *
+     * @param userId the user ID
+     * @param email the email to send
+     * @return true if the email was sent or queued
+     * @throws NexusClientException if the request fails or the email cannot be queued
+     */
+    public boolean sendEmail(String userId, EMail email) throws NexusClientException {
+        return sendEmail(userId, email, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Registers an email template with the Nexus API, so it can be referenced by
+     * {@link #sendTemplatedEmail(EMailTemplate, List)} without sending its body again.
+     *
+     * @param template the template to register
+     * @return true if the template was registered, false if the API does not support templates
+     * @throws NexusClientException if the request fails
+     */
+    public boolean registerEmailTemplate(EMailTemplate template) throws NexusClientException {
+        return registerEmailTemplate(template, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Sends a templated email to many users. The template is registered once and only the
+     * per-recipient variables are sent, in batches. If the API does not support templates,
+     * the template is rendered locally and sent to each recipient individually.
+     *
+     * @param template the email template
+     * @param recipients the recipients and their template variables
+     * @return the number of recipients the email was accepted for
+     * @throws NexusClientPartialSendException if a request fails after the email was accepted for some recipients
+     * @throws NexusClientException if a request fails
+     */
+    public int sendTemplatedEmail(EMailTemplate template, List<EMailRecipient> recipients) throws NexusClientException {
+        return sendTemplatedEmail(template, recipients, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets the users matching a query, reduced to the fields it selects. Use this instead of
+     * {@link #getUsers()} when a job only needs a few fields or a subset of the users.
+     *
+     * @param query the fields to return and the criteria to filter by
+     * @return the matching users
+     * @throws NexusClientException if the request fails
+     */
+    public UserProjection[] queryUsers(UserQuery query) throws NexusClientException {
+        return queryUsers(query, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets the users matching a query in the compact, columnar form of {@link #getUserTable()}.
+     * Fields the query does not select are null.
+     *
+     * @param query the fields to return and the criteria to filter by
+     * @return a table holding the matching users
+     * @throws NexusClientException if the request fails
+     */
+    public UserTable getUserTable(UserQuery query) throws NexusClientException {
+        return getUserTable(query, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Gets all users.
+     *
+     * @param options the per-call options
+     * @return all users
+     * @throws NexusClientException if the request fails
+     */
+    public abstract User[] getUsers(RequestOptions options) throws NexusClientException;
+
+    /**
+     * Gets a user.
+     *
+     * @param userId the user ID
+     * @param options the per-call options
+     * @return the user
+     * @throws NexusClientException if the request fails
+     */
+    public abstract User getUser(String userId, RequestOptions options) throws NexusClientException;
+
+    /**
+     * Sends an email to a user.
+     *
+     * @param userId the user ID
+     * @param email the email to send
+     * @param options the per-call options
+     * @return true if the email was sent or queued
+     * @throws NexusClientException if the request fails
+     */
+    public abstract boolean sendEmail(String userId, EMail email, RequestOptions options) throws NexusClientException;
+
+    /**
+     * Gets the users matching a query, reduced to the fields it selects. The default filters and
+     * projects the result of {@link #getUsers(RequestOptions)} on the client; implementations
+     * should let the server do both, so unselected fields and other users are not transferred.
+     *
+     * @param query the fields to return and the criteria to filter by
+     * @param options the per-call options
+     * @return the matching users
+     * @throws NexusClientException if the request fails
+     */
+    public UserProjection[] queryUsers(UserQuery query, RequestOptions options) throws NexusClientException {
+        if (query == null) {
+            throw new IllegalArgumentException("User query cannot be null");
+        }
+        User[] users = getUsers(options);
+        Set<UserField> fields = query.getFields();
+        List<UserProjection> matching = new ArrayList<>();
+        for (User user : users) {
+            if (query.matches(user.getId(), user.getEmail())) {
+                matching.add(new UserProjection(
+                        fields.contains(UserField.ID) ? user.getId() : null,
+                        fields.contains(UserField.USERNAME) ? user.getUsername() : null,
+                        fields.contains(UserField.EMAIL) ? user.getEmail() : null,
+                        fields.contains(UserField.FIRST_NAME) ? user.getFirstName() : null,
+                        fields.contains(UserField.LAST_NAME) ? user.getLastName() : null,
+                        fields.contains(UserField.AVATAR) ? user.getAvatar() : null));
+            }
+        }
+        return matching.toArray(new UserProjection[0]);
+    }
+
+    /**
+     * Gets the users matching a query in compact, columnar form. The default builds the table
+     * from {@link #queryUsers(UserQuery, RequestOptions)}; implementations should read the
+     * response straight into the table instead.
+     *
+     * @param query the fields to return and the criteria to filter by
+     * @param options the per-call options
+     * @return a table holding the matching users
+     * @throws NexusClientException if the request fails
+     */
+    public UserTable getUserTable(UserQuery query, RequestOptions options) throws NexusClientException {
+        UserProjection[] users = queryUsers(query, options);
+        UserTable.Builder builder = UserTable.builder(this, users.length);
+        for (UserProjection user : users) {
+            builder.add(new UserData(user.id(), user.username(), user.email(), user.firstName(), user.lastName(), user.avatar()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Looks up a user that may not exist. The default maps the not found exception of
+     * {@link #getUser(String, RequestOptions)} to an empty optional; implementations should
+     * check the response status instead, so no exception is created for a missing user.
+     *
+     * @param userId the user ID
+     * @param options the per-call options
+     * @return the user, or an empty optional if there is no user with this ID
+     * @throws NexusClientException if the request fails
+     */
+    public Optional<User> findUser(String userId, RequestOptions options) throws NexusClientException {
+        try {
+            return Optional.of(getUser(userId, options));
+        } catch (NexusClientNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Registers an email template with the Nexus API. The default does not register anything,
+     * so templated emails are rendered locally.
+     *
+     * @param template the template to register
+     * @param options the per-call options
+     * @return true if the template was registered, false if templates are not supported
+     * @throws NexusClientException if the request fails
+     */
+    public boolean registerEmailTemplate(EMailTemplate template, RequestOptions options) throws NexusClientException {
+        return false;
+    }
+
+    /**
+     * Sends a templated email to many users. The default renders the template locally and sends
+     * the email to each recipient through {@link #sendEmail(String, EMail, RequestOptions)}.
+     *
+     * @param template the email template
+     * @param recipients the recipients and their template variables
+     * @param options the per-call options
+     * @return the number of recipients the email was accepted for
+     * @throws NexusClientPartialSendException if a request fails after the email was accepted for some recipients
+     * @throws NexusClientException if a request fails
+     */
+    public int sendTemplatedEmail(EMailTemplate template, List<EMailRecipient> recipients, RequestOptions options) throws NexusClientException {
+        return sendRendered(template.compile(), recipients, options);
+    }
+
+    /**
+     * Gets the durable outbox {@link #sendEmail(String, EMail)} queues emails to.
+     *
+     * @return the email outbox, or null if the outbox is disabled
+     */
+    public EMailOutbox getEmailOutbox() {
+        return null;
+    }
+
+    /**
+     * Gets the cache of user IDs recently found not to exist.
+     *
+     * @return the not found cache, or null if the cache is disabled
+     */
+    public NotFoundCache getNotFoundCache() {
+        return null;
+    }
+
+    /**
+     * Renders a compiled template for each recipient and sends the result as an individual email.
+     */
+    protected int sendRendered(CompiledEMailTemplate compiled, List<EMailRecipient> recipients, RequestOptions options) throws NexusClientException {
+        int sent = 0;
+        for (EMailRecipient recipient : recipients) {
+            try {
+                if (sendEmail(recipient.userId(), compiled.render(recipient.variables()), options)) {
+                    sent++;
+                }
+            } catch (NexusClientException e) {
+                throw partialSendFailure(e, sent);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Keeps the number of recipients already sent to when a later request fails, so callers do not send to them again.
+     */
+    protected static NexusClientException partialSendFailure(NexusClientException e, int sent) {
+        if (sent == 0) {
+            return e;
+        }
+        return new NexusClientPartialSendException("Email sent to " + sent + " recipients before failing: " + e.getMessage(), sent, e);
+    }
 
     protected User constructUser(UserData userData) {
         return new User(userData, this);
     }
+
+    /**
+     * Attaches this repository to a table parsed from a response.
+     */
+    protected UserTable constructUserTable(UserTable parsed) {
+        return parsed.withRepository(this);
+    }
+
+    /**
+     * Attaches this repository to a table parsed from a response, dropping the rows that do not match the query.
+     */
+    protected UserTable constructUserTable(UserTable parsed, UserQuery query) {
+        return parsed.withRepository(this).filter(query);
+    }
+
+    protected UserTable constructUserTable(UserData[] usersData) {
+        UserTable.Builder builder = UserTable.builder(this, usersData.length);
+        for (UserData userData : usersData) {
+            builder.add(userData);
+        }
+        return builder.build();
+    }
 }
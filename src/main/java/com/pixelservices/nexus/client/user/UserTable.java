@@ -0,0 +1,372 @@
+package com.pixelservices.nexus.client.user;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, columnar representation of a (potentially very large) list of users.
+ * All string fields are stored as UTF-8 bytes in a single shared array, email domains
+ * and avatar URL prefixes are deduplicated through dictionaries, and {@link User}
+ * instances are only materialized on demand through {@link #get(int)}.
+ * <p>
+ * A user list is read straight into the table, one user at a time, so the full list is
+ * never held as objects while it is parsed.
+ */
+@JsonDeserialize(using = UserTable.Deserializer.class)
+public final class UserTable implements Iterable<User> {
+    private static final int ID = 0;
+    private static final int USERNAME = 1;
+    private static final int EMAIL_LOCAL = 2;
+    private static final int FIRST_NAME = 3;
+    private static final int LAST_NAME = 4;
+    private static final int AVATAR_SUFFIX = 5;
+    private static final int COLUMNS = 6;
+
+    private final UserRepository userRepository;
+    private final int size;
+    private final byte[] data;
+    private final int[] offsets;
+    private final long[] nulls;
+    private final int[] emailDomains;
+    private final String[] domainDictionary;
+    private final int[] avatarPrefixes;
+    private final String[] avatarPrefixDictionary;
+
+    private UserTable(Builder builder) {
+        this.userRepository = builder.userRepository;
+        this.size = builder.size;
+        this.data = Arrays.copyOf(builder.data, builder.dataLength);
+        this.offsets = Arrays.copyOf(builder.offsets, size * COLUMNS + 1);
+        this.nulls = Arrays.copyOf(builder.nulls, (size * COLUMNS + 63) >>> 6);
+        this.emailDomains = Arrays.copyOf(builder.emailDomains, size);
+        this.domainDictionary = builder.domains.toArray(new String[0]);
+        this.avatarPrefixes = Arrays.copyOf(builder.avatarPrefixes, size);
+        this.avatarPrefixDictionary = builder.avatarPrefixList.toArray(new String[0]);
+    }
+
+    private UserTable(UserTable table, UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.size = table.size;
+        this.data = table.data;
+        this.offsets = table.offsets;
+        this.nulls = table.nulls;
+        this.emailDomains = table.emailDomains;
+        this.domainDictionary = table.domainDictionary;
+        this.avatarPrefixes = table.avatarPrefixes;
+        this.avatarPrefixDictionary = table.avatarPrefixDictionary;
+    }
+
+    /**
+     * Gets the number of users in this table.
+     *
+     * @return the number of users
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materializes the user at the given row.
+     *
+     * @param index the row index
+     * @return a new user instance backed by the given repository
+     */
+    public User get(int index) {
+        checkIndex(index);
+        return new User(getUserData(index), userRepository);
+    }
+
+    /**
+     * Decodes the plain user data at the given row without attaching a repository.
+     *
+     * @param index the row index
+     * @return the decoded user data
+     */
+    public UserData getUserData(int index) {
+        checkIndex(index);
+        return new UserData(getId(index), getUsername(index), getEmail(index), getFirstName(index), getLastName(index), getAvatar(index));
+    }
+
+    public String getId(int index) {
+        checkIndex(index);
+        return cell(index, ID);
+    }
+
+    public String getUsername(int index) {
+        checkIndex(index);
+        return cell(index, USERNAME);
+    }
+
+    public String getEmail(int index) {
+        checkIndex(index);
+        String local = cell(index, EMAIL_LOCAL);
+        int domain = emailDomains[index];
+        if (local == null || domain < 0) {
+            return local;
+        }
+        return local + "@" + domainDictionary[domain];
+    }
+
+    public String getFirstName(int index) {
+        checkIndex(index);
+        return cell(index, FIRST_NAME);
+    }
+
+    public String getLastName(int index) {
+        checkIndex(index);
+        return cell(index, LAST_NAME);
+    }
+
+    public String getAvatar(int index) {
+        checkIndex(index);
+        String suffix = cell(index, AVATAR_SUFFIX);
+        int prefix = avatarPrefixes[index];
+        if (suffix == null || prefix < 0) {
+            return suffix;
+        }
+        return avatarPrefixDictionary[prefix].concat(suffix);
+    }
+
+    /**
+     * Finds the row of the user with the given ID without decoding any other rows.
+     *
+     * @param userId the user ID to look up
+     * @return the row index, or -1 if no user with the given ID exists
+     */
+    public int indexOf(String userId) {
+        if (userId == null) {
+            return -1;
+        }
+        byte[] needle = userId.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < size; i++) {
+            int cell = i * COLUMNS + ID;
+            if (!isNull(cell) && Arrays.equals(data, offsets[cell], offsets[cell + 1], needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the approximate number of bytes retained by this table's backing arrays.
+     *
+     * @return the approximate retained heap size in bytes
+     */
+    public long getRetainedBytes() {
+        long bytes = data.length + 4L * offsets.length + 8L * nulls.length + 4L * emailDomains.length + 4L * avatarPrefixes.length;
+        for (String domain : domainDictionary) {
+            bytes += domain.length();
+        }
+        for (String prefix : avatarPrefixDictionary) {
+            bytes += prefix.length();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Iterator<User> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public User next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    /**
+     * Attaches a repository to a parsed table, sharing its backing arrays.
+     */
+    UserTable withRepository(UserRepository userRepository) {
+        return new UserTable(this, userRepository);
+    }
+
+    /**
+     * Keeps the rows matching a query, decoding one row at a time.
+     */
+    UserTable filter(UserQuery query) {
+        Builder builder = null;
+        for (int i = 0; i < size; i++) {
+            boolean matches = query.matches(getId(i), getEmail(i));
+            if (!matches && builder == null) {
+                builder = new Builder(userRepository, size);
+                for (int kept = 0; kept < i; kept++) {
+                    builder.add(getUserData(kept));
+                }
+            } else if (matches && builder != null) {
+                builder.add(getUserData(i));
+            }
+        }
+        return builder != null ? builder.build() : this;
+    }
+
+    private String cell(int row, int column) {
+        int cell = row * COLUMNS + column;
+        if (isNull(cell)) {
+            return null;
+        }
+        int start = offsets[cell];
+        return new String(data, start, offsets[cell + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean isNull(int cell) {
+        return (nulls[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    static Builder builder(UserRepository userRepository, int expectedSize) {
+        return new Builder(userRepository, expectedSize);
+    }
+
+    /**
+     * Reads a JSON (or Smile/CBOR) array of users into a table without a repository.
+     */
+    static final class Deserializer extends StdDeserializer<UserTable> {
+        Deserializer() {
+            super(UserTable.class);
+        }
+
+        @Override
+        public UserTable deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return (UserTable) context.handleUnexpectedToken(UserTable.class, parser);
+            }
+            Builder builder = new Builder(null, 16);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NULL) {
+                    builder.add(context.readValue(parser, UserData.class));
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    static final class Builder {
+        private final UserRepository userRepository;
+        private final Map<String, Integer> domainIndex = new HashMap<>();
+        private final List<String> domains = new ArrayList<>();
+        private final Map<String, Integer> avatarPrefixIndex = new HashMap<>();
+        private final List<String> avatarPrefixList = new ArrayList<>();
+        private int size;
+        private byte[] data;
+        private int dataLength;
+        private int[] offsets;
+        private long[] nulls;
+        private int[] emailDomains;
+        private int[] avatarPrefixes;
+
+        private Builder(UserRepository userRepository, int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            this.userRepository = userRepository;
+            this.data = new byte[capacity * 64];
+            this.offsets = new int[capacity * COLUMNS + 1];
+            this.nulls = new long[(capacity * COLUMNS + 63) >>> 6];
+            this.emailDomains = new int[capacity];
+            this.avatarPrefixes = new int[capacity];
+        }
+
+        Builder add(UserData userData) {
+            ensureRowCapacity();
+            int row = size;
+
+            appendCell(row, ID, userData.getId());
+            appendCell(row, USERNAME, userData.getUsername());
+
+            String email = userData.getEmail();
+            int at = email == null ? -1 : email.lastIndexOf('@');
+            if (at < 0) {
+                appendCell(row, EMAIL_LOCAL, email);
+                emailDomains[row] = -1;
+            } else {
+                appendCell(row, EMAIL_LOCAL, email.substring(0, at));
+                emailDomains[row] = intern(email.substring(at + 1), domainIndex, domains);
+            }
+
+            appendCell(row, FIRST_NAME, userData.getFirstName());
+            appendCell(row, LAST_NAME, userData.getLastName());
+
+            String avatar = userData.getAvatar();
+            int slash = avatar == null ? -1 : avatar.lastIndexOf('/');
+            if (slash < 0) {
+                appendCell(row, AVATAR_SUFFIX, avatar);
+                avatarPrefixes[row] = -1;
+            } else {
+                appendCell(row, AVATAR_SUFFIX, avatar.substring(slash + 1));
+                avatarPrefixes[row] = intern(avatar.substring(0, slash + 1), avatarPrefixIndex, avatarPrefixList);
+            }
+
+            size++;
+            return this;
+        }
+
+        UserTable build() {
+            return new UserTable(this);
+        }
+
+        private void appendCell(int row, int column, String value) {
+            int cell = row * COLUMNS + column;
+            offsets[cell] = dataLength;
+            if (value == null) {
+                nulls[cell >>> 6] |= 1L << cell;
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (dataLength + bytes.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + bytes.length));
+                }
+                System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+                dataLength += bytes.length;
+            }
+            offsets[cell + 1] = dataLength;
+        }
+
+        private void ensureRowCapacity() {
+            if (size < emailDomains.length) {
+                return;
+            }
+            int capacity = emailDomains.length * 2;
+            offsets = Arrays.copyOf(offsets, capacity * COLUMNS + 1);
+            nulls = Arrays.copyOf(nulls, (capacity * COLUMNS + 63) >>> 6);
+            emailDomains = Arrays.copyOf(emailDomains, capacity);
+            avatarPrefixes = Arrays.copyOf(avatarPrefixes, capacity);
+        }
+
+        private static int intern(String value, Map<String, Integer> index, List<String> dictionary) {
+            Integer existing = index.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int id = dictionary.size();
+            dictionary.add(value);
+            index.put(value, id);
+            return id;
+        }
+    }
+}
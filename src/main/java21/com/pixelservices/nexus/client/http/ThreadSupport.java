@@ -0,0 +1,36 @@
+package com.pixelservices.nexus.client.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access to virtual threads, Java 21 version.
+ */
+final class ThreadSupport {
+    private ThreadSupport() {
+    }
+
+    static boolean isVirtualThreadSupported() {
+        return true;
+    }
+
+    /**
+     * Creates the executor for background work.
+     *
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @param virtualThreads true to start a new virtual thread for each task, false for a pool of daemon platform threads
+     * @return the executor
+     */
+    static ExecutorService newWorkerExecutor(String namePrefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 1).factory());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.pixelservices.nexus.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixelservices.nexus.client.data.EMailRecipient;
+import com.pixelservices.nexus.client.data.EMailTemplate;
+import com.pixelservices.nexus.client.exception.NexusClientPartialSendException;
+import com.pixelservices.nexus.client.http.DefaultHttpClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplatedEMailTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final EMailTemplate TEMPLATE = new EMailTemplate("welcome", "Hello {{firstName}}", "<p>Dear {{firstName}}</p>", true);
+
+    private HttpServer server;
+    private DefaultHttpClient httpClient;
+    private InternalUserRepository repository;
+
+    private volatile int templateStatus = 200;
+    private volatile int failingBatch = -1;
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<String> renderedSubjects = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/nexus/email-templates", exchange -> {
+            registrations.incrementAndGet();
+            respond(exchange, templateStatus);
+        });
+        server.createContext("/api/nexus/users/send-templated-email", exchange -> {
+            JsonNode batch = MAPPER.readTree(exchange.getRequestBody());
+            if (batchSizes.size() == failingBatch) {
+                respond(exchange, 500);
+                return;
+            }
+            batchSizes.add(batch.get("recipients").size());
+            respond(exchange, templateStatus);
+        });
+        server.createContext("/api/nexus/users/", exchange -> {
+            renderedSubjects.add(MAPPER.readTree(exchange.getRequestBody()).get("subject").asText());
+            respond(exchange, 200);
+        });
+        server.start();
+        httpClient = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor").build();
+        repository = new InternalUserRepository(httpClient, null, null, null);
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testRegistersOnceAndSendsInBatches() {
+        assertEquals(1_200, repository.sendTemplatedEmail(TEMPLATE, recipients(1_200)));
+        assertEquals(List.of(500, 500, 200), batchSizes);
+        assertEquals(1, registrations.get());
+
+        assertEquals(3, repository.sendTemplatedEmail(TEMPLATE, recipients(3)));
+        assertEquals(1, registrations.get());
+        assertTrue(renderedSubjects.isEmpty());
+    }
+
+    @Test
+    void testRendersLocallyWithoutServerTemplates() {
+        templateStatus = 404;
+        assertFalse(repository.registerEmailTemplate(TEMPLATE));
+        assertEquals(3, repository.sendTemplatedEmail(TEMPLATE, recipients(3)));
+        assertEquals(List.of("Hello User0", "Hello User1", "Hello User2"), renderedSubjects);
+        // Once known to be unsupported, templates are not offered to the server again
+        assertEquals(1, registrations.get());
+        assertTrue(batchSizes.isEmpty());
+    }
+
+    @Test
+    void testFailedLaterBatchKeepsSentCount() {
+        failingBatch = 1;
+        NexusClientPartialSendException failure = assertThrows(NexusClientPartialSendException.class,
+                () -> repository.sendTemplatedEmail(TEMPLATE, recipients(1_200)));
+        assertEquals(500, failure.getSent());
+        assertEquals(List.of(500), batchSizes);
+    }
+
+    private static List<EMailRecipient> recipients(int count) {
+        List<EMailRecipient> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add(new EMailRecipient("user" + i, Map.of("firstName", "User" + i)));
+        }
+        return recipients;
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        byte[] body = (status == 200 ? "true" : "{\"error\":\"status " + status + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
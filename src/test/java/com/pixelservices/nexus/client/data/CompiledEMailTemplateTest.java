@@ -0,0 +1,93 @@
+package com.pixelservices.nexus.client.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixelservices.nexus.client.exception.NexusClientValidationException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledEMailTemplateTest {
+
+    @Test
+    void testRender() {
+        CompiledEMailTemplate template = new EMailTemplate("welcome", "Hello {{ firstName }}", "<p>Dear {{firstName}}, your code is {{code}}.</p>", true).compile();
+
+        EMail email = template.render(Map.of("firstName", "<Alice>", "code", "42"));
+
+        assertEquals("Hello <Alice>", email.subject());
+        assertEquals("<p>Dear &lt;Alice&gt;, your code is 42.</p>", email.body());
+        assertTrue(email.isHtml());
+        assertThrows(NexusClientValidationException.class, () -> template.render(Map.of("firstName", "Bob")));
+    }
+
+    @Test
+    void testPayloadPerRecipient() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        EMailTemplate template = new EMailTemplate("newsletter", "News for {{firstName}}",
+                "<html><body><h1>Hi {{firstName}}</h1>" + "<p>Lorem ipsum dolor sit amet.</p>".repeat(100) + "</body></html>", true);
+        CompiledEMailTemplate compiled = template.compile();
+        Map<String, String> variables = Map.of("firstName", "Alice");
+
+        int renderedBytes = objectMapper.writeValueAsBytes(compiled.render(variables)).length;
+        int templatedBytes = objectMapper.writeValueAsBytes(new EMailRecipient("b699523a-d185-432a-a58e-2ddbebecc8e3", variables)).length;
+
+        assertTrue(templatedBytes * 10 < renderedBytes, "rendered " + renderedBytes + " bytes, templated " + templatedBytes + " bytes per recipient");
+    }
+
+    /**
+     * Timing comparison, excluded from the default build; run it with {@code mvn test -Pbenchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void testCpuPerRecipient() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        EMailTemplate template = new EMailTemplate("newsletter", "News for {{firstName}}",
+                "<html><body><h1>Hi {{firstName}}</h1>" + "<p>Lorem ipsum dolor sit amet.</p>".repeat(100) + "</body></html>", true);
+        CompiledEMailTemplate compiled = template.compile();
+        List<EMailRecipient> recipients = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            recipients.add(new EMailRecipient(UUID.randomUUID().toString(), Map.of("firstName", "User" + i)));
+        }
+
+        // Rendering and serializing a full email per recipient, as sendEmail does, against one batch body
+        Callable<Integer> rendered = () -> {
+            int bytes = 0;
+            for (EMailRecipient recipient : recipients) {
+                bytes += objectMapper.writeValueAsBytes(compiled.render(recipient.variables())).length;
+            }
+            return bytes;
+        };
+        Callable<Integer> templated = () -> objectMapper.writeValueAsBytes(new TemplatedEMailBatch(template.id(), recipients)).length;
+
+        long renderedNanos = cpuNanos(rendered);
+        long templatedNanos = cpuNanos(templated);
+        assertTrue(templatedNanos * 5 < renderedNanos, "rendered " + renderedNanos / recipients.size() + " ns, templated "
+                + templatedNanos / recipients.size() + " ns CPU per recipient");
+    }
+
+    /**
+     * Measures the best of several runs in CPU time of the current thread, after warming up.
+     */
+    private static long cpuNanos(Callable<Integer> work) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20; i++) {
+            work.call();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = threads.getCurrentThreadCpuTime();
+            work.call();
+            best = Math.min(best, threads.getCurrentThreadCpuTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,85 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testLimitFollowsLatency() {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimitPolicy.builder().initialLimit(20).smoothing(0.5).build());
+
+        // Latency at the minimum: the limit grows
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, FAST);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit " + grown);
+        assertEquals(10_000, limiter.getMinRttMicros());
+
+        // Latency rising well above the minimum: the limit shrinks
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, SLOW);
+        }
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < grown / 2, "limit " + shrunk);
+
+        // Timeouts and throttling cut the limit multiplicatively
+        limiter.acquire(null);
+        limiter.release(SLOW, ConcurrencyLimiter.Outcome.DROPPED);
+        assertTrue(Math.abs(shrunk * 0.9 - limiter.getLimit()) <= 1, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testShedsAndQueues() throws Exception {
+        ConcurrencyLimitPolicy.Builder policy = ConcurrencyLimitPolicy.builder().initialLimit(1).maxLimit(1);
+        ConcurrencyLimiter shedding = limiter(policy.build());
+        shedding.acquire(null);
+        assertThrows(NexusClientOverloadedException.class, () -> shedding.acquire(null));
+        assertEquals(1, shedding.getRejected());
+
+        ConcurrencyLimiter queueing = limiter(policy.maxQueueSize(1).queueTimeout(Duration.ofSeconds(5)).build());
+        queueing.acquire(null);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> queueing.acquire(null));
+        while (queueing.getWaiting() == 0) {
+            Thread.sleep(1);
+        }
+        // The queue is full, so a third call is shed right away
+        assertThrows(NexusClientOverloadedException.class, () -> queueing.acquire(null));
+        queueing.release(FAST, ConcurrencyLimiter.Outcome.SUCCESS);
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queueing.getInFlight());
+        assertEquals(1, queueing.getQueued());
+
+        ConcurrencyLimiter timingOut = limiter(policy.queueTimeout(Duration.ofMillis(20)).build());
+        timingOut.acquire(null);
+        assertThrows(NexusClientOverloadedException.class, () -> timingOut.acquire(null));
+    }
+
+    private static ConcurrencyLimiter limiter(ConcurrencyLimitPolicy policy) {
+        return new ConcurrencyLimiter(policy, new LongAdder(), new LongAdder());
+    }
+
+    /**
+     * Fills every slot and completes all calls with the given round-trip time.
+     */
+    private static void saturate(ConcurrencyLimiter limiter, long rttNanos) {
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            limiter.acquire(null);
+        }
+        for (int i = 0; i < limit; i++) {
+            limiter.release(rttNanos, ConcurrencyLimiter.Outcome.SUCCESS);
+        }
+    }
+}
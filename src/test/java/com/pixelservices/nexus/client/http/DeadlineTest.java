@@ -0,0 +1,131 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineTest {
+    private static final Endpoint USER = EndpointTemplate.of("/api/nexus/users/42").expand();
+
+    @Test
+    void testDeadline() throws Exception {
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remainingMillis() > 0 && deadline.remainingMillis() <= 50);
+        Deadline later = Deadline.after(Duration.ofSeconds(10));
+        assertSame(deadline, deadline.min(later));
+        assertSame(deadline, later.min(deadline));
+        assertSame(deadline, deadline.min(null));
+
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remainingMillis());
+    }
+
+    @Test
+    void testCancellationToken() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger aborted = new AtomicInteger();
+        CancellationToken.Registration closed = token.register(aborted::incrementAndGet);
+        closed.close();
+        token.register(aborted::incrementAndGet);
+
+        token.cancel();
+        token.cancel();
+        assertTrue(token.isCancelled());
+        assertEquals(1, aborted.get());
+        // Registering on a cancelled token aborts right away
+        token.register(aborted::incrementAndGet);
+        assertEquals(2, aborted.get());
+    }
+
+    @Test
+    void testTimeoutsClippedToDeadline() throws Exception {
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor")
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            HttpGet request = new HttpGet("http://127.0.0.1:1/");
+            client.applyTimeouts(request, RequestOptions.DEFAULT, Deadline.after(Duration.ofMillis(500)));
+            RequestConfig config = request.getConfig();
+            assertTrue(config.getConnectTimeout() > 0 && config.getConnectTimeout() <= 500, "connect " + config.getConnectTimeout());
+            assertTrue(config.getSocketTimeout() > 0 && config.getSocketTimeout() <= 500, "socket " + config.getSocketTimeout());
+            assertTrue(config.getConnectionRequestTimeout() > 0 && config.getConnectionRequestTimeout() <= 500);
+
+            // Shorter per-call timeouts are kept
+            RequestOptions options = RequestOptions.builder().readTimeout(Duration.ofMillis(100)).build();
+            client.applyTimeouts(request, options, Deadline.after(Duration.ofSeconds(20)));
+            assertEquals(100, request.getConfig().getSocketTimeout());
+            assertEquals(10_000, request.getConfig().getConnectTimeout());
+
+            Deadline expired = Deadline.after(Duration.ZERO);
+            assertThrows(NexusClientDeadlineExceededException.class, () -> client.applyTimeouts(request, RequestOptions.DEFAULT, expired));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void testExpiryAndCancellationAbortExchange() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/nexus/users/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                stalled.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor").build();
+        ScheduledExecutorService canceller = Executors.newSingleThreadScheduledExecutor();
+        try {
+            // An expired deadline fails before anything is sent
+            RequestOptions expired = RequestOptions.builder().deadline(Deadline.after(Duration.ZERO)).build();
+            assertThrows(NexusClientDeadlineExceededException.class, () -> client.execute(HttpMethod.GET, USER, null, UserData.class, expired));
+            assertEquals(0, requests.get());
+
+            // The deadline aborts the exchange long before the 30 s read timeout
+            long start = System.nanoTime();
+            RequestOptions deadline = RequestOptions.builder().timeout(Duration.ofMillis(200)).build();
+            assertThrows(NexusClientDeadlineExceededException.class, () -> client.execute(HttpMethod.GET, USER, null, UserData.class, deadline));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+
+            // Cancelling the token aborts the exchange in flight
+            CancellationToken token = new CancellationToken();
+            canceller.schedule(token::cancel, 100, TimeUnit.MILLISECONDS);
+            start = System.nanoTime();
+            RequestOptions cancellable = RequestOptions.builder().cancellationToken(token).build();
+            assertThrows(NexusClientCancelledException.class, () -> client.execute(HttpMethod.GET, USER, null, UserData.class, cancellable));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000);
+            // The cold first exchange may spend its whole deadline before sending, the cancelled one was in flight
+            assertTrue(requests.get() >= 1);
+        } finally {
+            stalled.countDown();
+            canceller.shutdownNow();
+            client.close();
+            server.stop(0);
+        }
+    }
+}
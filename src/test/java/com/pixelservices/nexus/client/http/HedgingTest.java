@@ -0,0 +1,105 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingTest {
+    private static final Endpoint USER = EndpointTemplate.of("/api/nexus/users/42").expand();
+
+    @Test
+    void testBudget() {
+        HedgeBudget budget = new HedgeBudget(0.5, 2);
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        // Two hedgeable requests earn one hedge
+        budget.deposit();
+        assertFalse(budget.tryAcquire());
+        budget.deposit();
+        assertTrue(budget.tryAcquire());
+
+        // Quiet periods do not save up more than a burst
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void testHedgeWinsAndLoserIsAborted() throws Exception {
+        // The first request stalls until the end of the test, the third one answers after 200 ms
+        CountDownLatch stalled = new CountDownLatch(1);
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/nexus/users/", exchange -> {
+            int request = requests.incrementAndGet();
+            try {
+                if (request == 1) {
+                    stalled.await(10, TimeUnit.SECONDS);
+                } else if (request == 3) {
+                    Thread.sleep(200);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"id\":\"" + request + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor")
+                .hedging(HedgingPolicy.builder().delay(Duration.ofMillis(50)).budgetRatio(0).maxBurst(1).build())
+                .build();
+        try {
+            HedgeMetrics metrics = client.getHedgeMetrics();
+            long start = System.nanoTime();
+            assertEquals("2", client.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+            assertEquals(1, metrics.getFired());
+            assertEquals(1, metrics.getWon());
+
+            // The stalled primary was aborted: its connection is returned and its latency recorded up to the abort
+            awaitTrue(() -> metrics.getLatency().getCount() == 2 && client.getRuntime().getPoolStats().getLeased() == 0);
+            assertTrue(metrics.getLatency().getMax() < TimeUnit.SECONDS.toMicros(2));
+
+            // The budget is spent, so the slow primary of the next call is not hedged
+            assertEquals("3", client.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+            assertEquals(2, metrics.getRequests());
+            assertEquals(1, metrics.getFired());
+            assertEquals(1, metrics.getBudgetExhausted());
+            assertEquals(3, requests.get());
+        } finally {
+            stalled.countDown();
+            client.close();
+            server.stop(0);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5 s");
+            Thread.sleep(5);
+        }
+    }
+}
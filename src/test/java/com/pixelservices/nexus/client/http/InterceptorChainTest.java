@@ -0,0 +1,108 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterceptorChainTest {
+    private static final Endpoint USER = EndpointTemplate.of("/api/nexus/users/42").expand();
+
+    @Test
+    void testChainOrderShortCircuitAndErrors() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        List<String> traceHeaders = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/nexus/users/", exchange -> {
+            requests.incrementAndGet();
+            traceHeaders.add(exchange.getRequestHeaders().getFirst("X-Trace"));
+            byte[] body = "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        List<String> calls = new CopyOnWriteArrayList<>();
+        RecordingInterceptor first = new RecordingInterceptor("first", calls);
+        RecordingInterceptor second = new RecordingInterceptor("second", calls);
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor")
+                .interceptor(first)
+                .interceptor(second)
+                .build();
+        try {
+            // beforeSend in registration order, afterReceive in reverse, headers reach the exchange
+            assertEquals("42", client.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+            assertEquals(List.of("first.beforeSend", "second.beforeSend", "second.afterReceive", "first.afterReceive"), calls);
+            assertEquals(List.of("first"), traceHeaders);
+
+            // A short-circuit skips the rest of the chain and the transport
+            calls.clear();
+            first.shortCircuit = ApiResponse.<UserData>builder().success(true).statusCode(200).data(new UserData("7", null, null, null, null, null)).build();
+            assertEquals("7", client.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+            assertEquals(List.of("first.beforeSend"), calls);
+            assertEquals(1, requests.get());
+            first.shortCircuit = null;
+
+            // A runtime failure reaches onError of the interceptors already entered, wrapped as a client exception
+            calls.clear();
+            IllegalStateException failure = new IllegalStateException("boom");
+            second.failure = failure;
+            NexusClientException thrown = assertThrows(NexusClientException.class,
+                    () -> client.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT));
+            assertSame(failure, thrown.getCause());
+            assertEquals(List.of("first.beforeSend", "second.beforeSend", "first.onError"), calls);
+            assertSame(thrown, first.error);
+            assertEquals(1, requests.get());
+        } finally {
+            client.close();
+            server.stop(0);
+        }
+    }
+
+    private static final class RecordingInterceptor implements RequestInterceptor {
+        private final String name;
+        private final List<String> calls;
+        volatile ApiResponse<?> shortCircuit;
+        volatile RuntimeException failure;
+        volatile NexusClientException error;
+
+        RecordingInterceptor(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public ApiResponse<?> beforeSend(RequestContext context) {
+            calls.add(name + ".beforeSend");
+            if (failure != null) {
+                throw failure;
+            }
+            if (context.getAttribute("trace") == null) {
+                context.setAttribute("trace", name);
+                context.addHeader("X-Trace", name);
+            }
+            return shortCircuit;
+        }
+
+        @Override
+        public void afterReceive(RequestContext context, ApiResponse<?> response) {
+            calls.add(name + ".afterReceive");
+        }
+
+        @Override
+        public void onError(RequestContext context, NexusClientException exception) {
+            calls.add(name + ".onError");
+            error = exception;
+        }
+    }
+}
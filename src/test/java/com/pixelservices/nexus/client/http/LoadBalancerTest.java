@@ -0,0 +1,63 @@
+package com.pixelservices.nexus.client.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancerTest {
+    private static final List<String> BASE_URLS = List.of("https://eu.example.com", "https://us.example.com");
+
+    @Test
+    void testPrefersFasterEndpoint() {
+        LoadBalancer loadBalancer = new LoadBalancer(BASE_URLS, LoadBalancingPolicy.DEFAULT);
+        loadBalancer.get(0).onStart();
+        loadBalancer.onComplete(loadBalancer.get(0), TimeUnit.MILLISECONDS.toNanos(200), false);
+        loadBalancer.get(1).onStart();
+        loadBalancer.onComplete(loadBalancer.get(1), TimeUnit.MILLISECONDS.toNanos(5), false);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, loadBalancer.select(0));
+        }
+        assertEquals(0, loadBalancer.select(1L << 1));
+        assertEquals(-1, loadBalancer.select(0b11));
+    }
+
+    @Test
+    void testEjectsAndRampsUp() {
+        LoadBalancingPolicy policy = LoadBalancingPolicy.builder()
+                .failureThreshold(3)
+                .slowStart(Duration.ofHours(1))
+                .build();
+        LoadBalancer loadBalancer = new LoadBalancer(BASE_URLS, policy);
+        Upstream failing = loadBalancer.get(0);
+        for (int i = 0; i < 3; i++) {
+            failing.onStart();
+            loadBalancer.onComplete(failing, TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+
+        assertTrue(failing.isEjected());
+        assertEquals(1, failing.getEjections());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, loadBalancer.select(0));
+        }
+        // Every other endpoint excluded: the ejected one is still tried rather than failing outright
+        assertEquals(0, loadBalancer.select(1L << 1));
+
+        // Right after its return, the endpoint only takes a small share, even though it looks cheaper
+        loadBalancer.get(1).onStart();
+        loadBalancer.onComplete(loadBalancer.get(1), TimeUnit.MILLISECONDS.toNanos(200), false);
+        failing.reinstate();
+        int selected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (loadBalancer.select(0) == 0) {
+                selected++;
+            }
+        }
+        assertFalse(failing.isEjected());
+        assertTrue(selected > 0 && selected < 250, "selected " + selected);
+    }
+}
@@ -0,0 +1,109 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NexusRuntimeTest {
+    private static final Endpoint USER = EndpointTemplate.of("/api/nexus/users/42").expand();
+
+    @Test
+    void testClientsShareRuntime() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/nexus/users/", exchange -> {
+            byte[] body = "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        NexusRuntime runtime = NexusRuntime.builder().build();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        DefaultHttpClient first = DefaultHttpClient.builder(baseUrl, "token-a", "vendor").runtime(runtime).build();
+        DefaultHttpClient second = DefaultHttpClient.builder(baseUrl, "token-b", "vendor").runtime(runtime).build();
+        try {
+            assertSame(runtime, first.getRuntime());
+            assertSame(runtime, second.getRuntime());
+
+            assertEquals("42", first.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+            assertEquals("42", second.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+
+            // Both exchanges went through one pool and were recorded in one registry
+            assertEquals(0, runtime.getPoolStats().getLeased());
+            assertEquals(1, runtime.getPoolStats().getAvailable());
+            assertEquals(2, runtime.getMetrics().histogram("http.latency").getCount());
+            assertEquals(2, runtime.getMetrics().counter("http.successes").sum());
+
+            // Closing a client leaves a runtime it was given running for the others
+            first.close();
+            assertFalse(runtime.getScheduler().isShutdown());
+            assertFalse(runtime.getExecutor().isShutdown());
+            assertEquals("42", second.execute(HttpMethod.GET, USER, null, UserData.class, RequestOptions.DEFAULT).getData().getId());
+        } finally {
+            second.close();
+            runtime.close();
+            server.stop(0);
+        }
+
+        assertTrue(runtime.getScheduler().isShutdown());
+        assertTrue(runtime.getExecutor().isShutdown());
+        assertEquals(0, runtime.getPoolStats().getAvailable());
+    }
+
+    @Test
+    void testClientOwnsDefaultRuntime() {
+        DefaultHttpClient first = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").build();
+        DefaultHttpClient second = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").build();
+        NexusRuntime runtime = first.getRuntime();
+        assertNotSame(runtime, second.getRuntime());
+        first.close();
+        assertTrue(runtime.getScheduler().isShutdown());
+        assertTrue(runtime.getExecutor().isShutdown());
+        assertFalse(second.getRuntime().getScheduler().isShutdown());
+        second.close();
+    }
+
+    @Test
+    void testLimiterMetricsAddUpClients() {
+        NexusRuntime runtime = NexusRuntime.builder().build();
+        DefaultHttpClient first = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").runtime(runtime)
+                .concurrencyLimit(ConcurrencyLimitPolicy.builder().initialLimit(10).build()).build();
+        DefaultHttpClient second = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").runtime(runtime)
+                .concurrencyLimit(ConcurrencyLimitPolicy.builder().initialLimit(30).build()).build();
+        DefaultHttpClient unlimited = DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").runtime(runtime).build();
+        try {
+            assertEquals(40, runtime.getMetrics().gauge("http.limiter.limit").get());
+            first.close();
+            assertEquals(30, runtime.getMetrics().gauge("http.limiter.limit").get());
+            assertEquals(30, second.getConcurrencyLimiter().getLimit());
+        } finally {
+            second.close();
+            unlimited.close();
+            runtime.close();
+        }
+        assertEquals(0, runtime.getMetrics().getGauges().get("http.limiter.limit").get());
+    }
+
+    @Test
+    void testMetricsAreCreatedOnce() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        assertSame(metrics.histogram("latency"), metrics.histogram("latency"));
+        assertSame(metrics.counter("errors"), metrics.counter("errors"));
+        assertNotSame(metrics.counter("errors"), metrics.counter("successes"));
+        assertSame(metrics.gauge("limit"), metrics.gauge("limit"));
+
+        metrics.counter("errors").increment();
+        metrics.histogram("latency").record(5);
+        assertEquals(1, metrics.getCounters().get("errors").sum());
+        assertEquals(1, metrics.getHistograms().get("latency").getCount());
+        assertThrows(UnsupportedOperationException.class, () -> metrics.getCounters().clear());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pixelservices.nexus.client.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledConnectionManagerTest {
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("127.0.0.1", 1));
+
+    @Test
+    void testCancelWakesWaiterAndTimeoutExpires() throws Exception {
+        PooledConnectionManager manager = new PooledConnectionManager(2, 1);
+        try {
+            HttpClientConnection held = manager.requestConnection(ROUTE, null).get(0, TimeUnit.MILLISECONDS);
+
+            // An untimed waiter only returns once it is cancelled, and is left without an interrupt
+            ConnectionRequest waiting = manager.requestConnection(ROUTE, null);
+            CompletableFuture<Boolean> interruptedAfterCancel = CompletableFuture.supplyAsync(() -> {
+                ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(0, TimeUnit.MILLISECONDS));
+                assertInstanceOf(CancellationException.class, failure.getCause());
+                return Thread.currentThread().isInterrupted();
+            });
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (manager.getTotalStats().getPending() == 0) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+            waiting.cancel();
+            assertFalse(interruptedAfterCancel.get(5, TimeUnit.SECONDS));
+            assertEquals(0, manager.getTotalStats().getPending());
+
+            long start = System.nanoTime();
+            assertThrows(ConnectionPoolTimeoutException.class, () -> manager.requestConnection(ROUTE, null).get(50, TimeUnit.MILLISECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+            // Neither the cancelled nor the timed out request kept a permit
+            manager.releaseConnection(held, null, 0, TimeUnit.MILLISECONDS);
+            assertNotNull(manager.requestConnection(ROUTE, null).get(50, TimeUnit.MILLISECONDS));
+
+            // A request cancelled before it waits does not take a permit either
+            ConnectionRequest cancelled = manager.requestConnection(ROUTE, null);
+            cancelled.cancel();
+            assertThrows(ExecutionException.class, () -> cancelled.get(0, TimeUnit.MILLISECONDS));
+            assertFalse(Thread.currentThread().isInterrupted());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void testFailedLeaseReturnsPermits() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        PooledConnectionManager manager = new PooledConnectionManager(1, 1, (route, config) -> {
+            if (failing.get()) {
+                throw new IllegalStateException("No connection");
+            }
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        });
+        try {
+            assertThrows(IllegalStateException.class, () -> manager.requestConnection(ROUTE, null).get(50, TimeUnit.MILLISECONDS));
+            assertEquals(0, manager.getTotalStats().getLeased());
+
+            // The failed lease left both the route's and the pool's permit behind
+            failing.set(false);
+            assertNotNull(manager.requestConnection(ROUTE, null).get(50, TimeUnit.MILLISECONDS));
+            assertEquals(1, manager.getTotalStats().getLeased());
+        } finally {
+            manager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientOverloadedException;
+import com.pixelservices.nexus.client.metrics.MetricsRegistry;
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityLanesTest {
+
+    @Test
+    void testBulkCappedAtShare() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        PriorityLanes lanes = new PriorityLanes(PriorityLanePolicy.builder().capacity(4).build(), 10, 10, metrics);
+        assertEquals(4, lanes.getCapacity());
+        assertEquals(1, lanes.getLane(Priority.BULK).getMaxConcurrency());
+
+        lanes.acquire(Priority.BULK, 0, null, null);
+        assertThrows(NexusClientOverloadedException.class, () -> lanes.acquire(Priority.BULK, 20, null, null));
+        assertEquals(1, lanes.getLane(Priority.BULK).getRejected());
+        assertEquals(1, metrics.counter("lane.bulk.rejected").sum());
+
+        // The rest of the capacity stays available to interactive calls
+        for (int i = 0; i < 3; i++) {
+            lanes.acquire(Priority.INTERACTIVE, 20, null, null);
+        }
+        assertThrows(NexusClientOverloadedException.class, () -> lanes.acquire(Priority.INTERACTIVE, 20, null, null));
+    }
+
+    @Test
+    void testInteractiveServedFirst() throws Exception {
+        PriorityLanes lanes = new PriorityLanes(PriorityLanePolicy.builder().capacity(4).build(), 10, 10, new MetricsRegistry());
+        List<PriorityLanes.Lane> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            held.add(lanes.acquire(Priority.INTERACTIVE, 0, null, null));
+        }
+
+        // The bulk call queues first, the interactive calls after it
+        Queue<Priority> served = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        waiters.add(enqueue(lanes, Priority.BULK, served));
+        awaitWaiting(lanes.getLane(Priority.BULK), 1);
+        waiters.add(enqueue(lanes, Priority.INTERACTIVE, served));
+        waiters.add(enqueue(lanes, Priority.INTERACTIVE, served));
+        awaitWaiting(lanes.getLane(Priority.INTERACTIVE), 2);
+
+        for (int i = 0; i < 3; i++) {
+            lanes.release(held.get(i), 0);
+            while (served.size() < i + 1) {
+                Thread.sleep(1);
+            }
+        }
+        for (CompletableFuture<Void> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of(Priority.INTERACTIVE, Priority.INTERACTIVE, Priority.BULK), new ArrayList<>(served));
+        assertEquals(1, lanes.getLane(Priority.BULK).getWaitTimes().getCount());
+    }
+
+    @Test
+    void testCancelWakesWaiter() throws Exception {
+        PriorityLanes lanes = new PriorityLanes(PriorityLanePolicy.builder().capacity(1).build(), 10, 10, new MetricsRegistry());
+        PriorityLanes.Lane held = lanes.acquire(Priority.DEFAULT, 0, null, null);
+
+        CancellationToken token = new CancellationToken();
+        CompletableFuture<PriorityLanes.Lane> waiter = CompletableFuture.supplyAsync(() -> lanes.acquire(Priority.DEFAULT, 0, null, token));
+        awaitWaiting(lanes.getLane(Priority.DEFAULT), 1);
+        token.cancel();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NexusClientCancelledException.class, failure.getCause());
+        assertEquals(0, lanes.getLane(Priority.DEFAULT).getWaiting());
+
+        // The cancelled waiter did not take the slot handed back
+        lanes.release(held, 0);
+        lanes.acquire(Priority.DEFAULT, 20, null, null);
+    }
+
+    @Test
+    void testUnscheduledWithoutPolicy() {
+        try (NexusRuntime runtime = NexusRuntime.builder().maxConnections(7).maxConnectionsPerRoute(2).build()) {
+            PriorityLanes lanes = runtime.getPriorityLanes();
+            assertFalse(lanes.isScheduling());
+            for (int i = 0; i < 20; i++) {
+                lanes.acquire(Priority.BULK, 1, null, null);
+            }
+            assertEquals(20, lanes.getLane(Priority.BULK).getRequests());
+            assertEquals(0, lanes.getLane(Priority.BULK).getRejected());
+        }
+
+        // The lanes share the connections the pool can open to the clients' hosts unless told otherwise
+        try (NexusRuntime runtime = NexusRuntime.builder().maxConnections(7).maxConnectionsPerRoute(2).priorityLanes(PriorityLanePolicy.DEFAULT).build()) {
+            PriorityLanes lanes = runtime.getPriorityLanes();
+            assertTrue(lanes.isScheduling());
+            assertEquals(2, lanes.getCapacity());
+            DefaultHttpClient.builder("http://127.0.0.1:1", "token", "vendor").runtime(runtime)
+                    .baseUrls(List.of("http://127.0.0.1:1", "http://127.0.0.1:2")).build().close();
+            assertEquals(4, lanes.getCapacity());
+            assertEquals(1, lanes.getLane(Priority.BULK).getMaxConcurrency());
+            DefaultHttpClient.builder("http://127.0.0.1:3", "token", "vendor").runtime(runtime)
+                    .baseUrls(List.of("http://127.0.0.1:3", "http://127.0.0.1:4", "http://127.0.0.1:1")).build().close();
+            assertEquals(7, lanes.getCapacity());
+        }
+    }
+
+    @Test
+    void testBulkDoesNotFillRoute() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().startsWith("/bulk")) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        NexusRuntime runtime = NexusRuntime.builder().maxConnectionsPerRoute(4).priorityLanes(PriorityLanePolicy.DEFAULT).build();
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor").runtime(runtime).build();
+        try {
+            PriorityLanes lanes = runtime.getPriorityLanes();
+            assertEquals(4, lanes.getCapacity());
+            RequestOptions interactive = RequestOptions.builder().priority(Priority.INTERACTIVE).build();
+            client.execute(HttpMethod.GET, EndpointTemplate.of("/interactive").expand(), null, UserData.class, interactive);
+
+            // Far more bulk calls than the route has connections
+            RequestOptions bulk = RequestOptions.builder().priority(Priority.BULK).build();
+            List<CompletableFuture<Void>> bulkCalls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                bulkCalls.add(CompletableFuture.runAsync(() -> client.execute(HttpMethod.GET, EndpointTemplate.of("/bulk").expand(), null, UserData.class, bulk)));
+            }
+            awaitWaiting(lanes.getLane(Priority.BULK), 1);
+
+            // An interactive call does not queue behind them in the pool
+            long start = System.nanoTime();
+            client.execute(HttpMethod.GET, EndpointTemplate.of("/interactive").expand(), null, UserData.class, interactive);
+            long interactiveMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(interactiveMillis < 200, "interactive call took " + interactiveMillis + " ms");
+
+            for (CompletableFuture<Void> call : bulkCalls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(0, lanes.getLane(Priority.BULK).getRejected());
+        } finally {
+            client.close();
+            runtime.close();
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+
+    private static CompletableFuture<Void> enqueue(PriorityLanes lanes, Priority priority, Queue<Priority> served) {
+        return CompletableFuture.runAsync(() -> served.add(lanes.acquire(priority, 5000, null, null).getPriority()));
+    }
+
+    private static void awaitWaiting(PriorityLanes.Lane lane, int waiting) throws InterruptedException {
+        while (lane.getWaiting() < waiting) {
+            Thread.sleep(1);
+        }
+    }
+}
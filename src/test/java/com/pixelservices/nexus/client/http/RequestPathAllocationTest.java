@@ -0,0 +1,63 @@
+package com.pixelservices.nexus.client.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestPathAllocationTest {
+    private static final EndpointTemplate USER = EndpointTemplate.of("/api/nexus/users/{userId}");
+    private static final long BYTES_PER_REQUEST_BUDGET = 512;
+
+    @Test
+    void testEndpointTemplateExpansion() {
+        assertEquals("/api/nexus/users/42", USER.expand("42").getPath());
+        assertEquals("/api/nexus/users/{userId}", USER.expand("42").getTemplate());
+        assertEquals("/a/1/b/2", EndpointTemplate.of("/a/{x}/b/{y}").expand("1", "2").getPath());
+        EndpointTemplate ping = EndpointTemplate.of("/ping");
+        assertSame(ping.expand(), ping.expand());
+        assertThrows(IllegalArgumentException.class, () -> USER.expand());
+
+        // Values are encoded as a single path segment
+        String id = "b699523a-d185-432a-a58e-2ddbebecc8e3";
+        assertSame(id, EndpointTemplate.encodeSegment(id));
+        assertEquals("/api/nexus/users/a%2Fb%3Fc%20d", USER.expand("a/b?c d").getPath());
+        assertEquals("/a/%25/b/%C3%BC%23", EndpointTemplate.of("/a/{x}/b/{y}").expand("%", "ü#").getPath());
+        assertEquals("/api/nexus/users/%2E%2E", USER.expand("..").getPath());
+        assertEquals("/api/nexus/users/a:b@c", USER.expand("a:b@c").getPath());
+    }
+
+    @Test
+    void testClientSideAllocationBudget() {
+        ApiResponse<String> cached = ApiResponse.<String>builder().data("cached").success(true).statusCode(200).build();
+        DefaultHttpClient client = DefaultHttpClient.builder("http://localhost:1", "token", "vendor")
+                .interceptor(new RequestInterceptor() {
+                    @Override
+                    public ApiResponse<?> beforeSend(RequestContext context) {
+                        return cached;
+                    }
+                })
+                .build();
+        try {
+            // Measures everything on the request path except the transport itself:
+            // endpoint expansion, the interceptor chain, timing and (sampled) logging.
+            for (int i = 0; i < 50_000; i++) {
+                client.execute(HttpMethod.GET, USER.expand("b699523a-d185-432a-a58e-2ddbebecc8e3"), null, String.class, RequestOptions.DEFAULT);
+            }
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            int iterations = 100_000;
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                client.execute(HttpMethod.GET, USER.expand("b699523a-d185-432a-a58e-2ddbebecc8e3"), null, String.class, RequestOptions.DEFAULT);
+            }
+            long bytesPerRequest = (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+
+            assertTrue(bytesPerRequest <= BYTES_PER_REQUEST_BUDGET, "Allocated " + bytesPerRequest + " bytes per request");
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pixelservices.nexus.client.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBufferPoolTest {
+
+    @Test
+    void testReadsAndReusesBuffers() throws Exception {
+        ResponseBufferPool pool = new ResponseBufferPool(1, 16, 1024);
+        String body = "{\"id\":\"" + "x".repeat(100) + "\"}";
+
+        byte[] first;
+        try (ResponseBufferPool.Buffer buffer = pool.acquire()) {
+            assertTrue(buffer.readFrom(stream(body), 1024, -1));
+            assertEquals(body, buffer.toString(StandardCharsets.UTF_8));
+            first = buffer.array();
+        }
+        try (ResponseBufferPool.Buffer buffer = pool.acquire()) {
+            assertSame(first, buffer.array());
+            assertTrue(buffer.readFrom(stream(" \r\n"), 1024, 3));
+            assertTrue(buffer.isBlank());
+        }
+    }
+
+    @Test
+    void testStopsAtLimit() throws Exception {
+        ResponseBufferPool pool = new ResponseBufferPool(1, 16, 1024);
+        CountingInputStream in = new CountingInputStream(stream("y".repeat(1_000_000)));
+
+        try (ResponseBufferPool.Buffer buffer = pool.acquire()) {
+            assertFalse(buffer.readFrom(in, 100, -1));
+            assertEquals(100, buffer.length());
+            assertEquals("y".repeat(100), buffer.toString(StandardCharsets.UTF_8));
+        }
+        assertTrue(in.count <= 101);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class CountingInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private long count;
+
+        private CountingInputStream(ByteArrayInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
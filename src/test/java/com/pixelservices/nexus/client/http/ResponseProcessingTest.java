@@ -0,0 +1,131 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.exception.NexusClientHttpException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.exception.NexusClientRateLimitedException;
+import com.pixelservices.nexus.client.exception.NexusClientServerErrorException;
+import com.pixelservices.nexus.client.exception.NexusClientUnauthorizedException;
+import com.pixelservices.nexus.client.user.UserData;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseProcessingTest {
+    private static final int MAX_RESPONSE_BODY_SIZE = 1024;
+    private static final int MAX_ERROR_BODY_SIZE = 100;
+
+    private HttpServer server;
+    private DefaultHttpClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/large", exchange -> respond(exchange, 200, 64 * 1024, false));
+        server.createContext("/chunked", exchange -> respond(exchange, 200, 64 * 1024, true));
+        server.createContext("/short-error", exchange -> respond(exchange, 400, 50, false));
+        server.createContext("/status/", exchange -> {
+            int status = Integer.parseInt(exchange.getRequestURI().getPath().substring("/status/".length()));
+            if (status == 429) {
+                exchange.getResponseHeaders().set("Retry-After", "7");
+            }
+            respond(exchange, status, 10 * 1024, false);
+        });
+        server.start();
+        client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor")
+                .maxResponseBodySize(MAX_RESPONSE_BODY_SIZE)
+                .maxErrorBodySize(MAX_ERROR_BODY_SIZE)
+                .build();
+    }
+
+    @AfterEach
+    void stopServer() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testOversizedContentLengthFailsBeforeReading() {
+        NexusClientHttpException failure = assertThrows(NexusClientHttpException.class, () -> get("/large"));
+        assertEquals(200, failure.getStatusCode());
+        assertTrue(failure.getMessage().contains(64 * 1024 + " bytes"), failure.getMessage());
+        assertEquals(0, client.getRuntime().getPoolStats().getLeased());
+    }
+
+    @Test
+    void testChunkedBodyOverLimitIsAborted() {
+        NexusClientHttpException failure = assertThrows(NexusClientHttpException.class, () -> get("/chunked"));
+        assertTrue(failure.getMessage().contains("more than " + MAX_RESPONSE_BODY_SIZE + " bytes"), failure.getMessage());
+        // The rest of the body is not drained, so the connection is discarded rather than pooled
+        assertEquals(0, client.getRuntime().getPoolStats().getLeased());
+        assertEquals(0, client.getRuntime().getPoolStats().getAvailable());
+    }
+
+    @Test
+    void testErrorBodyIsTruncated() {
+        ApiResponse<UserData> response = get("/status/500");
+        assertFalse(response.isSuccess());
+        assertEquals(500, response.getStatusCode());
+        String body = response.getRawResponse();
+        assertTrue(body.endsWith("... [truncated]"), body);
+        assertEquals(MAX_ERROR_BODY_SIZE + "... [truncated]".length(), body.length());
+
+        // Error bodies within the limit are kept as they are
+        assertEquals("x".repeat(50), get("/short-error").getRawResponse());
+    }
+
+    @Test
+    void testErrorStatusMapping() {
+        assertInstanceOf(NexusClientNotFoundException.class, failureOf("/status/404"));
+        NexusClientRateLimitedException rateLimited = assertInstanceOf(NexusClientRateLimitedException.class, failureOf("/status/429"));
+        assertEquals(Duration.ofSeconds(7), rateLimited.getRetryAfter());
+        assertInstanceOf(NexusClientUnauthorizedException.class, failureOf("/status/401"));
+        assertInstanceOf(NexusClientUnauthorizedException.class, failureOf("/status/403"));
+        NexusClientHttpException serverError = assertInstanceOf(NexusClientServerErrorException.class, failureOf("/status/503"));
+        assertEquals(503, serverError.getStatusCode());
+        assertTrue(serverError.getResponseBody().endsWith("... [truncated]"));
+        NexusClientHttpException other = failureOf("/status/418");
+        assertEquals(NexusClientHttpException.class, other.getClass());
+        assertEquals(418, other.getStatusCode());
+    }
+
+    private ApiResponse<UserData> get(String path) {
+        return client.execute(HttpMethod.GET, Endpoint.of(path), null, UserData.class, RequestOptions.DEFAULT);
+    }
+
+    private NexusClientHttpException failureOf(String path) {
+        return assertThrows(NexusClientHttpException.class, () -> get(path).getDataOrThrow());
+    }
+
+    private static void respond(HttpExchange exchange, int status, int size, boolean chunked) throws IOException {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) 'x');
+        if (status == 200) {
+            // Valid JSON if it were read completely
+            body[0] = '"';
+            body[size - 1] = '"';
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, chunked ? 0 : size);
+            for (int offset = 0; offset < size; offset += 512) {
+                out.write(body, offset, Math.min(512, size - offset));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client gave up on the body
+        }
+        exchange.close();
+    }
+}
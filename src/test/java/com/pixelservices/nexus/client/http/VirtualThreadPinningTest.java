@@ -0,0 +1,125 @@
+package com.pixelservices.nexus.client.http;
+
+import com.pixelservices.nexus.client.NexusClient;
+import com.pixelservices.nexus.client.user.User;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs 10,000 concurrent {@code getUser} calls on virtual threads and fails if any of them pinned its
+ * carrier thread while blocked in the client or the connection pool. Requires Java 21; run it with
+ * {@code mvn verify -Ppinning}, which tests the packaged jar and sets {@code -Djdk.tracePinnedThreads=full}.
+ */
+class VirtualThreadPinningTest {
+    private static final int CALLS = 10_000;
+
+    @Test
+    void testNoPinningUnderContention() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+        assumeTrue(Boolean.getBoolean("nexus.pinningTest") || System.getProperty("jdk.tracePinnedThreads") != null,
+                "Stress test, enabled by the pinning profile");
+
+        // Without it the stub's small writes wait on delayed ACKs and the server becomes the bottleneck
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        byte[] body = "{\"id\":\"42\",\"username\":\"jdoe\",\"email\":\"jdoe@example.com\"}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        // Far fewer connections than calls, so most calls wait for a connection
+        NexusRuntime runtime = NexusRuntime.builder()
+                .maxConnectionsPerRoute(16)
+                .priorityLanes(PriorityLanePolicy.builder().capacity(64).build())
+                .virtualThreads(true)
+                .build();
+        PrintStream out = System.out;
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        Path file = Files.createTempFile("nexus-pinning", ".jfr");
+        try (NexusClient client = NexusClient.withToken("token")
+                .withVendorId("vendor")
+                .withBaseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .withVerifyAttempts(2)
+                .withConnectTimeout(Duration.ofMinutes(1))
+                .withRuntime(runtime)
+                .build();
+             Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            // Committing an event may flush JFR's buffers from native code, which counts as pinned
+            for (String event : new String[] {"Request", "CacheHit", "ConnectionVerification", "PoolExhausted", "Retry"}) {
+                recording.disable("com.pixelservices.nexus." + event);
+            }
+            recording.start();
+            System.setOut(new PrintStream(trace, true, StandardCharsets.UTF_8));
+
+            List<Future<User>> calls = new ArrayList<>(CALLS);
+            ExecutorService threads = newVirtualThreadPerTaskExecutor();
+            try {
+                for (int i = 0; i < CALLS; i++) {
+                    calls.add(threads.submit(() -> client.userRepository.getUser("42")));
+                }
+                for (Future<User> call : calls) {
+                    assertEquals("jdoe", call.get(2, TimeUnit.MINUTES).getUsername());
+                }
+            } finally {
+                threads.shutdown();
+            }
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            System.setOut(out);
+            runtime.close();
+            server.stop(0);
+        }
+
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        List<String> pinnedInClient = pinned.stream()
+                .filter(event -> event.getStackTrace() != null && event.getStackTrace().getFrames().stream().anyMatch(VirtualThreadPinningTest::isClientFrame))
+                .map(event -> event.getStackTrace().getFrames().stream().map(RecordedFrame::toString).collect(Collectors.joining("\n  ")))
+                .collect(Collectors.toList());
+        assertTrue(pinnedInClient.isEmpty(), pinnedInClient.size() + " pinned parks, e.g.\n  " + (pinnedInClient.isEmpty() ? "" : pinnedInClient.get(0)));
+        String traced = trace.toString(StandardCharsets.UTF_8);
+        assertFalse(traced.contains("com.pixelservices.nexus") || traced.contains("org.apache.http"), traced);
+    }
+
+    private static boolean isClientFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("com.pixelservices.nexus") || type.startsWith("org.apache.http");
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor, looked up reflectively so the test compiles on Java 17.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws ReflectiveOperationException {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+}
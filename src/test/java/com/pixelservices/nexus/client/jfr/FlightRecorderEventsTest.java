@@ -0,0 +1,97 @@
+package com.pixelservices.nexus.client.jfr;
+
+import com.pixelservices.nexus.client.http.DefaultHttpClient;
+import com.pixelservices.nexus.client.http.EndpointTemplate;
+import com.pixelservices.nexus.client.http.HttpMethod;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.PriorityLanePolicy;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+    private static final EndpointTemplate USER = EndpointTemplate.of("/api/nexus/users/{userId}");
+
+    @Test
+    void testRecordsRequestsAndPoolExhaustion() throws Exception {
+        byte[] body = "{\"id\":\"42\"}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/nexus/users", exchange -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        // One connection for three concurrent requests: two of them have to wait for the pool,
+        // the priority lanes are widened so they do not queue the requests in front of it
+        NexusRuntime runtime = NexusRuntime.builder()
+                .maxConnectionsPerRoute(1)
+                .priorityLanes(PriorityLanePolicy.builder().capacity(3).build())
+                .build();
+        DefaultHttpClient client = DefaultHttpClient.builder("http://127.0.0.1:" + server.getAddress().getPort(), "token", "vendor")
+                .runtime(runtime)
+                .build();
+        Path file = Files.createTempFile("nexus", ".jfr");
+        try (Recording recording = new Recording(NexusFlightRecorder.slowRequestConfiguration())) {
+            recording.enable(RequestEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            CompletableFuture<?>[] requests = new CompletableFuture<?>[3];
+            for (int i = 0; i < requests.length; i++) {
+                String userId = String.valueOf(i);
+                requests[i] = CompletableFuture.runAsync(() -> client.execute(HttpMethod.GET, USER.expand(userId), null, Map.class, RequestOptions.DEFAULT));
+            }
+            CompletableFuture.allOf(requests).join();
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            client.close();
+            runtime.close();
+            server.stop(0);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        List<RecordedEvent> requestEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.pixelservices.nexus.Request"))
+                .collect(Collectors.toList());
+        assertEquals(3, requestEvents.size());
+        for (RecordedEvent event : requestEvents) {
+            assertEquals("GET", event.getString("method"));
+            assertEquals("/api/nexus/users/{userId}", event.getString("endpoint"));
+            assertEquals(200, event.getInt("statusCode"));
+            assertEquals(body.length, event.getLong("responseBytes"));
+            assertTrue(event.getDuration("waitTime").toMillis() >= 40, "wait time " + event.getDuration("waitTime"));
+        }
+        assertTrue(requestEvents.stream().anyMatch(event -> event.getDuration("poolLeaseTime").toMillis() >= 40));
+
+        List<RecordedEvent> poolEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.pixelservices.nexus.PoolExhausted"))
+                .collect(Collectors.toList());
+        assertFalse(poolEvents.isEmpty());
+        assertEquals(1, poolEvents.get(0).getInt("max"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.pixelservices.nexus.client.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5_000.5, histogram.getMean(), 0.001);
+        assertWithinBucket(5_000, histogram.getPercentile(0.5));
+        assertWithinBucket(9_900, histogram.getPercentile(0.99));
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(10_000, histogram.getPercentile(1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(1.5));
+
+        // Small values are exact
+        Histogram small = new Histogram();
+        small.record(-5);
+        small.record(3);
+        assertEquals(0, small.getPercentile(0.5));
+        assertEquals(3, small.getPercentile(1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        Histogram histogram = new Histogram();
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 1_000);
+                }
+            }));
+        }
+        for (CompletableFuture<Void> writer : writers) {
+            writer.get();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(999, histogram.getMax());
+        assertWithinBucket(500, histogram.getPercentile(0.5));
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,172 @@
+package com.pixelservices.nexus.client.outbox;
+
+import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.exception.NexusClientCancelledException;
+import com.pixelservices.nexus.client.exception.NexusClientDeadlineExceededException;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.http.ApiResponse;
+import com.pixelservices.nexus.client.http.CancellationToken;
+import com.pixelservices.nexus.client.http.Deadline;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EMailOutboxTest {
+
+    @Test
+    void testDeliversInOrderAndCompacts() throws Exception {
+        Path directory = Files.createTempDirectory("nexus-outbox");
+        List<String> users = new CopyOnWriteArrayList<>();
+        List<String> keys = new CopyOnWriteArrayList<>();
+        try (EMailOutbox outbox = EMailOutbox.open(directory, (userId, email, idempotencyKey) -> {
+            users.add(userId);
+            keys.add(idempotencyKey);
+            return ApiResponse.<Boolean>builder().success(true).statusCode(200).data(true).build();
+        }, 256)) {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                int offset = t * 10;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        outbox.append("user" + (offset + i), new EMail("Subject", "Body"));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            awaitDelivered(outbox, 40);
+            assertEquals(0, outbox.getPendingCount());
+        }
+
+        assertEquals(40, users.size());
+        assertEquals(40, new HashSet<>(keys).size());
+        assertEquals(1, countSegments(directory));
+        delete(directory);
+    }
+
+    @Test
+    void testReplaysAfterRestart() throws Exception {
+        Path directory = Files.createTempDirectory("nexus-outbox");
+        List<String> attemptedKeys = new CopyOnWriteArrayList<>();
+        try (EMailOutbox outbox = EMailOutbox.open(directory, (userId, email, idempotencyKey) -> {
+            attemptedKeys.add(idempotencyKey);
+            throw new NexusClientException("Connection refused");
+        })) {
+            for (int i = 0; i < 3; i++) {
+                outbox.append("user" + i, new EMail("Subject " + i, "Body"));
+            }
+            assertEquals(3, outbox.getPendingCount());
+        }
+
+        // A torn frame at the end of the log must not hide the records before it
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(path -> path.toString().endsWith(OutboxSegment.SUFFIX)).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+        }
+
+        List<String> users = new CopyOnWriteArrayList<>();
+        List<String> keys = new CopyOnWriteArrayList<>();
+        try (EMailOutbox outbox = EMailOutbox.open(directory, (userId, email, idempotencyKey) -> {
+            users.add(userId);
+            keys.add(idempotencyKey);
+            return ApiResponse.<Boolean>builder().success(true).statusCode(200).data(true).build();
+        })) {
+            awaitDelivered(outbox, 3);
+        }
+
+        assertEquals(List.of("user0", "user1", "user2"), users);
+        assertEquals(attemptedKeys.get(0), keys.get(0));
+        delete(directory);
+    }
+
+    @Test
+    void testAppendHonorsDeadlineAndCancellation() throws Exception {
+        Path directory = Files.createTempDirectory("nexus-outbox");
+        List<String> users = new CopyOnWriteArrayList<>();
+        try (EMailOutbox outbox = EMailOutbox.open(directory, (userId, email, idempotencyKey) -> {
+            users.add(userId);
+            return ApiResponse.<Boolean>builder().success(true).statusCode(200).data(true).build();
+        })) {
+            CancellationToken cancelled = new CancellationToken();
+            cancelled.cancel();
+            assertThrows(NexusClientCancelledException.class,
+                    () -> outbox.append("cancelled", new EMail("Subject", "Body"), RequestOptions.builder().cancellationToken(cancelled).build()));
+            assertThrows(NexusClientDeadlineExceededException.class,
+                    () -> outbox.append("expired", new EMail("Subject", "Body"), RequestOptions.builder().deadline(Deadline.after(Duration.ZERO)).build()));
+
+            // A live token and deadline do not get in the way
+            outbox.append("user", new EMail("Subject", "Body"), RequestOptions.builder()
+                    .cancellationToken(new CancellationToken())
+                    .timeout(Duration.ofSeconds(10))
+                    .build());
+            awaitDelivered(outbox, 1);
+        }
+        assertEquals(List.of("user"), users);
+        delete(directory);
+    }
+
+    @Test
+    void testRunsOnSharedExecutor() throws Exception {
+        Path directory = Files.createTempDirectory("nexus-outbox");
+        List<String> senderThreads = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "shared-worker"));
+        try {
+            try (EMailOutbox outbox = EMailOutbox.open(directory, (userId, email, idempotencyKey) -> {
+                senderThreads.add(Thread.currentThread().getName());
+                return ApiResponse.<Boolean>builder().success(true).statusCode(200).data(true).build();
+            }, EMailOutbox.DEFAULT_SEGMENT_BYTES, executor)) {
+                outbox.append("user", new EMail("Subject", "Body"));
+                awaitDelivered(outbox, 1);
+                assertTrue(Thread.getAllStackTraces().keySet().stream().noneMatch(thread -> thread.getName().startsWith("nexus-email-outbox-")));
+            }
+            assertEquals(List.of("shared-worker"), senderThreads);
+
+            // Both loops have returned their threads to the executor, which is left running
+            assertFalse(executor.isShutdown());
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        delete(directory);
+    }
+
+    private static void awaitDelivered(EMailOutbox outbox, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (outbox.getDeliveredCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, outbox.getDeliveredCount());
+    }
+
+    private static long countSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(OutboxSegment.SUFFIX)).count();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
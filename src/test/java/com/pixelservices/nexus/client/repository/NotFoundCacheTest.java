@@ -0,0 +1,179 @@
+package com.pixelservices.nexus.client.repository;
+
+import com.pixelservices.nexus.client.NexusClient;
+import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.exception.NexusClientHttpException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.exception.NexusClientRateLimitedException;
+import com.pixelservices.nexus.client.exception.NexusClientServerErrorException;
+import com.pixelservices.nexus.client.exception.NexusClientUnauthorizedException;
+import com.pixelservices.nexus.client.http.ApiResponse;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.pixelservices.nexus.client.service.Service;
+import com.pixelservices.nexus.client.service.ServiceRepository;
+import com.pixelservices.nexus.client.user.User;
+import com.pixelservices.nexus.client.user.UserRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotFoundCacheTest {
+
+    @Test
+    void testTypedExceptions() {
+        assertInstanceOf(NexusClientNotFoundException.class, error(404, false, Map.of()));
+        assertInstanceOf(NexusClientUnauthorizedException.class, error(403, false, Map.of()));
+        assertInstanceOf(NexusClientServerErrorException.class, error(503, false, Map.of()));
+        assertEquals(NexusClientHttpException.class, error(409, false, Map.of()).getClass());
+
+        NexusClientRateLimitedException rateLimited = (NexusClientRateLimitedException) error(429, true, Map.of("retry-after", "7"));
+        assertEquals(Duration.ofSeconds(7), rateLimited.getRetryAfter());
+        assertEquals(0, rateLimited.getStackTrace().length);
+        assertTrue(error(404, false, Map.of()).getStackTrace().length > 0);
+        assertEquals(0, error(404, true, Map.of()).getStackTrace().length);
+        // Only expected outcomes are stackless
+        assertTrue(error(500, true, Map.of()).getStackTrace().length > 0);
+    }
+
+    @Test
+    void testCachesMisses() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> respond(exchange, 200, "{}"));
+        server.createContext("/api/nexus/users/", exchange -> {
+            lookups.incrementAndGet();
+            if (exchange.getRequestURI().getPath().endsWith("/42")) {
+                respond(exchange, 200, "{\"id\":\"42\",\"username\":\"jdoe\",\"email\":\"jdoe@example.com\"}");
+            } else {
+                respond(exchange, 404, "{\"error\":\"User not found\"}");
+            }
+        });
+        server.start();
+
+        try (NexusClient client = NexusClient.withToken("token")
+                .withVendorId("vendor")
+                .withBaseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .withVerifyAttempts(2)
+                .withNotFoundCache(Duration.ofMinutes(1))
+                .withStacklessErrors(true)
+                .build()) {
+            Optional<User> user = client.userRepository.findUser("42");
+            assertEquals("jdoe", user.orElseThrow().getUsername());
+
+            assertTrue(client.userRepository.findUser("7").isEmpty());
+            assertTrue(client.userRepository.findUser("7").isEmpty());
+            NexusClientNotFoundException notFound = assertThrows(NexusClientNotFoundException.class, () -> client.userRepository.getUser("7"));
+            assertEquals(0, notFound.getStackTrace().length);
+            assertEquals(2, lookups.get());
+
+            // A miss through getUser is cached as well
+            assertThrows(NexusClientNotFoundException.class, () -> client.userRepository.getUser("8"));
+            assertTrue(client.userRepository.findUser("8").isEmpty());
+            assertEquals(3, lookups.get());
+
+            client.userRepository.getNotFoundCache().remove("7");
+            assertTrue(client.userRepository.findUser("7").isEmpty());
+            assertEquals(4, lookups.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testExpiresAndStaysBounded() throws Exception {
+        NotFoundCache cache = new NotFoundCache("test", Duration.ofMillis(20), 2);
+        cache.add("1");
+        cache.add("2");
+        cache.add("3");
+        assertTrue(cache.contains("1"));
+        assertFalse(cache.contains("3"));
+        Thread.sleep(30);
+        // Adding to the full cache purges the expired entries
+        cache.add("3");
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains("3"));
+        assertFalse(cache.contains("1"));
+    }
+
+    @Test
+    void testFindDefaultsMapNotFound() {
+        UserRepository users = new UserRepository(null) {
+            @Override
+            public User getUser(String userId, RequestOptions options) {
+                throw new NexusClientNotFoundException("User " + userId + " not found", null, true);
+            }
+
+            @Override
+            public User[] getUsers(RequestOptions options) {
+                return new User[0];
+            }
+
+            @Override
+            public boolean sendEmail(String userId, EMail email, RequestOptions options) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        assertTrue(users.findUser("2").isEmpty());
+        assertNull(users.getNotFoundCache());
+
+        ServiceRepository services = new ServiceRepository(null) {
+            @Override
+            public Service getService(String serviceId, RequestOptions options) {
+                throw new NexusClientNotFoundException("Service " + serviceId + " not found", null, true);
+            }
+
+            @Override
+            public Service[] getServices(RequestOptions options) {
+                return new Service[0];
+            }
+        };
+        assertTrue(services.findService("a").isEmpty());
+        assertNull(services.getNotFoundCache());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testStacklessCost() {
+        // Fastest of several rounds per mode, alternating so that both see the same machine load
+        long[] nanos = {Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < 10; round++) {
+            for (int mode = 0; mode < 2; mode++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < 20_000; i++) {
+                    new NexusClientNotFoundException("API request failed: Not Found", null, mode == 0);
+                }
+                nanos[mode] = Math.min(nanos[mode], System.nanoTime() - start);
+            }
+        }
+        assertTrue(nanos[1] * 5 < nanos[0], "404 with stack trace took " + nanos[0] / 20_000 + " ns, stackless " + nanos[1] / 20_000 + " ns");
+    }
+
+    private static NexusClientHttpException error(int statusCode, boolean stackless, Map<String, String> headers) {
+        ApiResponse<Object> response = ApiResponse.builder()
+                .statusCode(statusCode)
+                .message("Error")
+                .headers(headers)
+                .stacklessErrors(stackless)
+                .build();
+        return assertThrows(NexusClientHttpException.class, response::throwIfError);
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.pixelservices.nexus.client.service;
+
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceCatalogTest {
+
+    @Test
+    void testRefreshAndStaleness() throws Exception {
+        AtomicReference<Supplier<Service[]>> loader = new AtomicReference<>(() -> new Service[] {service("a"), service("b")});
+        try (ServiceCatalog catalog = new ServiceCatalog(() -> loader.get().get(), Duration.ofMillis(100))) {
+            assertTrue(catalog.isStale());
+            assertNull(catalog.getAge());
+            assertNull(catalog.get("a"));
+
+            catalog.refresh();
+            assertFalse(catalog.isStale());
+            assertEquals("a", catalog.get("a").getId());
+            assertEquals(2, catalog.getAll().size());
+
+            // A failed refresh keeps serving the previous snapshot until it goes stale
+            loader.set(() -> {
+                throw new NexusClientException("unavailable");
+            });
+            assertThrows(NexusClientException.class, catalog::refresh);
+            assertEquals("b", catalog.get("b").getId());
+            Thread.sleep(150);
+            assertTrue(catalog.isStale());
+            assertEquals("b", catalog.get("b").getId());
+        }
+    }
+
+    @Test
+    void testBackgroundRefreshRecordsFailures() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaded = new CountDownLatch(1);
+        try (ServiceCatalog catalog = new ServiceCatalog(() -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new NexusClientException("unavailable");
+            }
+            loaded.countDown();
+            return new Service[] {service("a")};
+        }, Duration.ofMillis(100))) {
+            catalog.start();
+            // The failed first load is retried after a second
+            assertTrue(loaded.await(5, TimeUnit.SECONDS));
+            assertEquals(1, catalog.getRefreshFailures());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (catalog.get("a") == null || catalog.getLastRefreshError() != null) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    @Test
+    void testAddDuringRefreshIsKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch added = new CountDownLatch(1);
+        try (ServiceCatalog catalog = new ServiceCatalog(() -> {
+            loading.countDown();
+            try {
+                added.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Service[] {service("a")};
+        }, Duration.ofMinutes(1))) {
+            CompletableFuture<Void> refresh = CompletableFuture.runAsync(catalog::refresh);
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            catalog.add(service("created"));
+            added.countDown();
+            refresh.get(5, TimeUnit.SECONDS);
+
+            assertEquals("a", catalog.get("a").getId());
+            assertEquals("created", catalog.get("created").getId());
+            assertEquals(2, catalog.getAll().size());
+        }
+    }
+
+    private static Service service(String id) {
+        return new Service(new ServiceData(id, "Service " + id), null);
+    }
+}
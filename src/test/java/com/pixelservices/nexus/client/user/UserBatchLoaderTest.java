@@ -0,0 +1,169 @@
+package com.pixelservices.nexus.client.user;
+
+import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.exception.NexusClientException;
+import com.pixelservices.nexus.client.exception.NexusClientNotFoundException;
+import com.pixelservices.nexus.client.http.NexusRuntime;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBatchLoaderTest {
+
+    @Test
+    void testDedupAndWindowExpiry() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        try (UserBatchLoader loader = UserBatchLoader.builder(repository).window(Duration.ofMillis(50)).build()) {
+            CompletableFuture<User> first = loader.load("1");
+            assertSame(first, loader.load("1"));
+            CompletableFuture<User> second = loader.load("2");
+
+            // Nothing is sent before the window expires
+            Thread.sleep(20);
+            assertEquals(0, repository.lookups.get());
+            assertEquals("1", first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals("2", second.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(2, repository.lookups.get());
+
+            assertEquals(1, loader.getBatchSizes().getCount());
+            assertEquals(2, loader.getBatchSizes().getMax());
+            assertEquals(2, loader.getWaitTimes().getCount());
+            assertTrue(loader.getWaitTimes().getMax() >= TimeUnit.MILLISECONDS.toMicros(40), "waited " + loader.getWaitTimes().getMax() + " µs");
+
+            // A later request for the same ID starts a new batch
+            assertEquals("1", loader.load("1").get(5, TimeUnit.SECONDS).getId());
+            assertEquals(3, repository.lookups.get());
+            assertEquals(2, loader.getBatchSizes().getCount());
+        }
+    }
+
+    @Test
+    void testDispatchAtMaxBatchSize() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        try (UserBatchLoader loader = UserBatchLoader.builder(repository).window(Duration.ofMinutes(10)).maxBatchSize(3).build()) {
+            CompletableFuture<User> first = loader.load("1");
+            loader.load("2");
+            assertFalse(first.isDone());
+            CompletableFuture<User> third = loader.load("3");
+            assertEquals("1", first.get(5, TimeUnit.SECONDS).getId());
+            assertEquals("3", third.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(1, loader.getBatchSizes().getCount());
+            assertEquals(3, loader.getBatchSizes().getMax());
+            assertTrue(loader.getWaitTimes().getMax() < TimeUnit.SECONDS.toMicros(5));
+        }
+    }
+
+    @Test
+    void testFailuresArePerCaller() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        try (UserBatchLoader loader = UserBatchLoader.builder(repository).window(Duration.ofMillis(5)).build()) {
+            CompletableFuture<User> found = loader.load("1");
+            CompletableFuture<User> missing = loader.load(StubUserRepository.MISSING);
+            assertEquals("1", found.get(5, TimeUnit.SECONDS).getId());
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NexusClientNotFoundException.class, failure.getCause());
+        }
+    }
+
+    @Test
+    void testCloseFlushesAndRejects() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            UserBatchLoader loader = UserBatchLoader.builder(repository).window(Duration.ofMinutes(10)).scheduler(scheduler).build();
+            CompletableFuture<User> pending = loader.load("1");
+            loader.close();
+            assertEquals("1", pending.get(5, TimeUnit.SECONDS).getId());
+            assertThrows(NexusClientException.class, () -> loader.load("2"));
+            // A shared scheduler is left running
+            assertFalse(scheduler.isShutdown());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectedTimerDispatchesRightAway() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.shutdown();
+        try (UserBatchLoader loader = UserBatchLoader.builder(repository).window(Duration.ofMinutes(10)).scheduler(scheduler).build()) {
+            assertEquals("1", loader.load("1").get(5, TimeUnit.SECONDS).getId());
+        }
+    }
+
+    @Test
+    void testRunsOnRuntimeThreads() throws Exception {
+        StubUserRepository repository = new StubUserRepository();
+        repository.delayMillis = 20;
+        try (NexusRuntime runtime = NexusRuntime.builder().build();
+             UserBatchLoader loader = UserBatchLoader.builder(repository).runtime(runtime).window(Duration.ofMillis(5)).maxParallelism(2).build()) {
+            List<CompletableFuture<User>> users = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                users.add(loader.load(String.valueOf(i)));
+            }
+            for (CompletableFuture<User> user : users) {
+                user.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(8, repository.lookups.get());
+            assertEquals(2, repository.maxConcurrent.get());
+            assertTrue(repository.threads.stream().allMatch(name -> name.startsWith("nexus-worker-")), repository.threads.toString());
+            assertTrue(Thread.getAllStackTraces().keySet().stream().noneMatch(thread -> thread.getName().startsWith("nexus-user-loader-")));
+        }
+    }
+
+    private static final class StubUserRepository extends UserRepository {
+        static final String MISSING = "missing";
+
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        volatile long delayMillis;
+
+        StubUserRepository() {
+            super(null);
+        }
+
+        @Override
+        public User getUser(String userId, RequestOptions options) {
+            lookups.incrementAndGet();
+            threads.add(Thread.currentThread().getName());
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            if (MISSING.equals(userId)) {
+                throw new NexusClientNotFoundException("User " + userId + " not found", null, false);
+            }
+            return new User(new UserData(userId, "user" + userId, null, null, null, null), this);
+        }
+
+        @Override
+        public User[] getUsers(RequestOptions options) {
+            return new User[0];
+        }
+
+        @Override
+        public boolean sendEmail(String userId, EMail email, RequestOptions options) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.pixelservices.nexus.client.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixelservices.nexus.client.NexusClient;
+import com.pixelservices.nexus.client.data.EMail;
+import com.pixelservices.nexus.client.http.RequestOptions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserQueryTest {
+    private static final int USERS = 10_000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testQueryString() {
+        UserQuery query = UserQuery.builder()
+                .fields(UserField.EMAIL, UserField.ID)
+                .emailDomain("@Example.COM")
+                .ids("1", "a b")
+                .build();
+        assertEquals("fields=id%2Cemail&emailDomain=example.com&ids=1%2Ca+b", query.toQueryString());
+        assertEquals("", UserQuery.ALL.toQueryString());
+        assertTrue(query.matches("1", "jdoe@EXAMPLE.com"));
+        assertFalse(query.matches("2", "jdoe@example.com"));
+        assertFalse(query.matches("1", "jdoe@example.com.evil.org"));
+        assertThrows(IllegalArgumentException.class, () -> UserQuery.builder().emailDomain(" ").build());
+    }
+
+    @Test
+    void testServerSideFiltering() throws Exception {
+        List<Map<String, Object>> users = users();
+        HttpServer server = stub(users, true);
+        try (NexusClient client = client(server)) {
+            UserProjection[] projected = client.userRepository.queryUsers(UserQuery.builder()
+                    .fields(UserField.ID, UserField.EMAIL)
+                    .emailDomain("example.org")
+                    .build());
+            assertEquals(USERS / 4, projected.length);
+            for (UserProjection user : projected) {
+                assertTrue(user.email().endsWith("@example.org"));
+                assertNotNull(user.id());
+                assertNull(user.username());
+                assertNull(user.avatar());
+            }
+
+            UserTable table = client.userRepository.getUserTable(UserQuery.builder().ids("3", "7", "missing").build());
+            assertEquals(2, table.size());
+            assertEquals("user3", table.getUsername(0));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testFiltersOnClientWhenServerIgnoresQuery() throws Exception {
+        HttpServer server = stub(users(), false);
+        try (NexusClient client = client(server)) {
+            UserProjection[] projected = client.userRepository.queryUsers(UserQuery.builder()
+                    .fields(UserField.ID, UserField.EMAIL)
+                    .ids("0", "4", "5")
+                    .emailDomain("example.com")
+                    .build());
+            assertEquals(List.of("0", "4"), Arrays.stream(projected).map(UserProjection::id).toList());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testDefaultsFilterAndProjectListing() {
+        UserRepository repository = new UserRepository(null) {
+            @Override
+            public User[] getUsers(RequestOptions options) {
+                User[] users = new User[3];
+                for (int i = 0; i < users.length; i++) {
+                    users[i] = new User(new UserData(String.valueOf(i), "user" + i, "user" + i + (i == 1 ? "@example.org" : "@example.com"), "First" + i, null, null), this);
+                }
+                return users;
+            }
+
+            @Override
+            public User getUser(String userId, RequestOptions options) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean sendEmail(String userId, EMail email, RequestOptions options) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        UserQuery query = UserQuery.builder().fields(UserField.ID, UserField.FIRST_NAME).emailDomain("example.com").build();
+        assertArrayEquals(new UserProjection[] {
+                new UserProjection("0", null, null, "First0", null, null),
+                new UserProjection("2", null, null, "First2", null, null)
+        }, repository.queryUsers(query));
+
+        UserTable table = repository.getUserTable(query);
+        assertEquals(2, table.size());
+        assertEquals("2", table.getId(1));
+        assertEquals("First2", table.getFirstName(1));
+        assertNull(table.getEmail(1));
+    }
+
+    @Test
+    void testPayloadSize() throws Exception {
+        List<Map<String, Object>> users = users();
+        byte[] full = MAPPER.writeValueAsBytes(users);
+        byte[] projected = MAPPER.writeValueAsBytes(project(users, Set.of("id", "email")));
+        assertTrue(projected.length * 2 < full.length, projected.length + " vs " + full.length + " bytes");
+        assertEquals(USERS, MAPPER.readValue(projected, UserProjection[].class).length);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testParseTime() throws Exception {
+        List<Map<String, Object>> users = users();
+        byte[] full = MAPPER.writeValueAsBytes(users);
+        byte[] projected = MAPPER.writeValueAsBytes(project(users, Set.of("id", "email")));
+
+        // Warm up, then time parsing the full listing into UserData and the projection into UserProjection
+        long fullNanos = Long.MAX_VALUE;
+        long projectedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            long start = System.nanoTime();
+            MAPPER.readValue(full, UserData[].class);
+            fullNanos = Math.min(fullNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            MAPPER.readValue(projected, UserProjection[].class);
+            projectedNanos = Math.min(projectedNanos, System.nanoTime() - start);
+        }
+        assertTrue(projectedNanos < fullNanos, "projection parsed in " + projectedNanos + " ns, full listing in " + fullNanos);
+    }
+
+    private static NexusClient client(HttpServer server) {
+        return NexusClient.withToken("token")
+                .withVendorId("vendor")
+                .withBaseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                .withVerifyAttempts(2)
+                .build();
+    }
+
+    /**
+     * Starts a stub of the user listing that honors (or ignores) the query parameters.
+     */
+    private static HttpServer stub(List<Map<String, Object>> users, boolean honorQuery) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> respond(exchange, "{}".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/api/nexus/users", exchange -> {
+            Map<String, String> parameters = honorQuery ? parameters(exchange.getRequestURI().getRawQuery()) : Map.of();
+            String domain = parameters.get("emailDomain");
+            Set<String> ids = parameters.containsKey("ids") ? new HashSet<>(Arrays.asList(parameters.get("ids").split(","))) : null;
+            List<Map<String, Object>> matching = new ArrayList<>();
+            for (Map<String, Object> user : users) {
+                if ((domain == null || ((String) user.get("email")).endsWith("@" + domain))
+                        && (ids == null || ids.contains(user.get("id")))) {
+                    matching.add(user);
+                }
+            }
+            Object body = parameters.containsKey("fields")
+                    ? project(matching, new HashSet<>(Arrays.asList(parameters.get("fields").split(","))))
+                    : matching;
+            respond(exchange, MAPPER.writeValueAsBytes(body));
+        });
+        server.start();
+        return server;
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                parameters.put(parameter.substring(0, equals), URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static List<Map<String, Object>> users() {
+        String[] domains = {"example.com", "example.org", "mail.example.com", "example.net"};
+        List<Map<String, Object>> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("id", String.valueOf(i));
+            user.put("username", "user" + i);
+            user.put("email", "user" + i + "@" + domains[i % domains.length]);
+            user.put("firstName", "First" + i);
+            user.put("lastName", "Last" + i);
+            user.put("avatar", "https://cdn.pixel-services.com/avatars/" + i + "/a1b2c3d4e5f6.png");
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static List<Map<String, Object>> project(List<Map<String, Object>> users, Set<String> fields) {
+        List<Map<String, Object>> projected = new ArrayList<>(users.size());
+        for (Map<String, Object> user : users) {
+            Map<String, Object> projection = new LinkedHashMap<>(user);
+            projection.keySet().retainAll(fields);
+            projected.add(projection);
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pixelservices.nexus.client.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTableTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testRoundTrip() throws Exception {
+        UserData[] usersData = {
+                new UserData("1", "alice", "alice@example.com", "Alice", "Doe", "https://cdn.example.com/avatars/1.png"),
+                new UserData("2", "bob", "bob@example.com", null, "Smith", null),
+                new UserData("3", "carol", "not-an-email", "Carol", null, "avatar.png"),
+                new UserData("4", "dave", null, "Dave", "Ünicode", "https://cdn.example.com/avatars/4.png")
+        };
+
+        UserTable.Builder builder = UserTable.builder(null, usersData.length);
+        for (UserData userData : usersData) {
+            builder.add(userData);
+        }
+        UserTable table = builder.build();
+        UserTable parsed = MAPPER.readValue(MAPPER.writeValueAsBytes(usersData), UserTable.class);
+
+        assertEquals(usersData.length, table.size());
+        assertEquals(usersData.length, parsed.size());
+        for (int i = 0; i < usersData.length; i++) {
+            assertEquals(usersData[i], table.getUserData(i));
+            assertEquals(usersData[i], parsed.getUserData(i));
+        }
+        assertEquals(2, table.indexOf("3"));
+        assertEquals(-1, table.indexOf("5"));
+
+        UserTable filtered = parsed.filter(UserQuery.builder().ids("1", "2", "3").emailDomain("example.com").build());
+        assertEquals(2, filtered.size());
+        assertEquals("alice", filtered.getUsername(0));
+        assertEquals("bob", filtered.getUsername(1));
+        assertSame(parsed, parsed.filter(UserQuery.ALL));
+    }
+
+    @Test
+    void testSmallerThanUserArray() throws Exception {
+        int count = 100_000;
+        UserData[] usersData = new UserData[count];
+        for (int i = 0; i < count; i++) {
+            String id = UUID.randomUUID().toString();
+            usersData[i] = new UserData(id, "user" + i, "user" + i + "@example.com", "First" + i, "Last" + i,
+                    "https://cdn.example.com/avatars/" + id + ".png");
+        }
+        byte[] json = MAPPER.writeValueAsBytes(usersData);
+        usersData = null;
+
+        long userArrayBytes = retainedBytes(() -> {
+            UserData[] parsed = MAPPER.readValue(json, UserData[].class);
+            User[] users = new User[parsed.length];
+            for (int i = 0; i < parsed.length; i++) {
+                users[i] = new User(parsed[i], null);
+            }
+            return users;
+        });
+        long tableBytes = retainedBytes(() -> MAPPER.readValue(json, UserTable.class));
+
+        UserTable table = MAPPER.readValue(json, UserTable.class);
+        assertEquals(count, table.size());
+        assertTrue(table.getRetainedBytes() / count < 200, "Expected compact representation, got " + table.getRetainedBytes() / count + " bytes per user");
+        assertTrue(tableBytes * 3 < userArrayBytes, "UserTable retains " + tableBytes + " bytes, User[] " + userArrayBytes + " bytes");
+    }
+
+    /**
+     * Measures the heap retained by the result of an allocation, after garbage collection.
+     */
+    private static long retainedBytes(Callable<Object> allocation) throws Exception {
+        long before = usedHeap();
+        Object result = allocation.call();
+        long after = usedHeap();
+        Reference.reachabilityFence(result);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}